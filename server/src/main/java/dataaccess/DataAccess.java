@@ -1,7 +1,10 @@
 package dataaccess;
 
 import model.*;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 public interface DataAccess {
@@ -24,4 +27,13 @@ public interface DataAccess {
     GameData getGame(int gameID) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
+
+//    Creates games in order, returning them with their new IDs; implementations may send them in one batch
+    default List<GameData> createGames(List<GameData> games) throws DataAccessException {
+        List<GameData> created = new ArrayList<>(games.size());
+        for (GameData game : games) {
+            created.add(createGame(game));
+        }
+        return created;
+    }
 }
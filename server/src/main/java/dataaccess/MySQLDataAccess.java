@@ -207,6 +207,48 @@ public class MySQLDataAccess implements DataAccess {
         throw new DataAccessException("Error creating game: Failed to get gameID");
     }
 
+    @Override
+    public List<GameData> createGames(List<GameData> games) throws DataAccessException {
+        var created = new ArrayList<GameData>(games.size());
+
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
+            try (var ps = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)) {
+                for (GameData game : games) {
+                    ps.setString(1, game.whiteUsername());
+                    ps.setString(2, game.blackUsername());
+                    ps.setString(3, game.gameName());
+                    ps.setString(4, gson.toJson(game.game()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (var rs = ps.getGeneratedKeys()) {
+                    for (GameData game : games) {
+                        if (!rs.next()) {
+                            throw new SQLException("Failed to get gameID");
+                        }
+                        created.add(new GameData(
+                                rs.getInt(1),
+                                game.whiteUsername(),
+                                game.blackUsername(),
+                                game.gameName(),
+                                game.game()
+                        ));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error creating games: " + e.getMessage());
+        }
+        return created;
+    }
+
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
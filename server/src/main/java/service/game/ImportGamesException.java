@@ -0,0 +1,23 @@
+package service.game;
+
+import dataaccess.DataAccessException;
+
+/**
+ * Thrown when an import stops part way. Batches written before the failure
+ * are kept, so the partial result tells how many games did make it in.
+ */
+public class ImportGamesException extends DataAccessException {
+    private final transient ImportGamesResult partialResult;
+
+    public ImportGamesException(String message, Throwable cause, ImportGamesResult partialResult) {
+        super(message, cause);
+        this.partialResult = partialResult;
+    }
+
+    /**
+     * @return the counts when the import stopped; imported games are already stored
+     */
+    public ImportGamesResult getPartialResult() {
+        return partialResult;
+    }
+}
@@ -0,0 +1,17 @@
+package service.game;
+
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * @param archive  the games to import; read to the end but not closed
+ * @param format   PGN games, or one FEN record per line
+ * @param progress called on the importing thread after every batch is written, or null
+ */
+public record ImportGamesRequest(Reader archive, Format format, Consumer<ImportGamesResult> progress) {
+    public enum Format { PGN, FEN }
+
+    public ImportGamesRequest(Reader archive, Format format) {
+        this(archive, format, null);
+    }
+}
@@ -0,0 +1,14 @@
+package service.game;
+
+/**
+ * @param read         games read from the archive so far
+ * @param imported     games written through DataAccess
+ * @param rejected     games dropped for an illegal move or a bad FEN record
+ * @param elapsedNanos time since the import started
+ */
+public record ImportGamesResult(long read, long imported, long rejected, long elapsedNanos) {
+
+    public double gamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : imported * 1e9 / elapsedNanos;
+    }
+}
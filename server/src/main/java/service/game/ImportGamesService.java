@@ -0,0 +1,227 @@
+package service.game;
+
+import chess.ChessGame;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnReplay;
+import chess.pgn.ReplayResult;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.GameData;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads an archive of games into DataAccess as a pipeline: one thread reads
+ * the archive into a bounded queue, worker threads replay each game with
+ * ChessGame and pass the legal ones on through a second bounded queue, and
+ * the calling thread writes them in batches with createGames. A full queue
+ * blocks the stage feeding it, so a slow database slows the reader instead of
+ * filling memory. A game that can't be parsed or replayed is counted as
+ * rejected and the import goes on; only a failure to read the archive or to
+ * write, or a worker stopping on an unexpected error, fails the whole import.
+ * Each batch is committed as it is written, so a failed import leaves the
+ * earlier batches in place and reports them in an {@link ImportGamesException}.
+ */
+public class ImportGamesService {
+    private static final int QUEUE_PER_WORKER = 64;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final long OFFER_WAIT_MILLIS = 100;
+//    marks the end of a queue; compared by identity
+    private static final Object END_OF_ARCHIVE = new Object();
+    private static final GameData END_OF_GAMES = new GameData(0, null, null, null, null);
+
+    private final DataAccess dataAccess;
+    private final int workers;
+    private final int batchSize;
+
+    public ImportGamesService(DataAccess dataAccess) {
+        this(dataAccess, Runtime.getRuntime().availableProcessors(), 500);
+    }
+
+    /**
+     * @param workers   threads replaying games
+     * @param batchSize games per createGames call
+     */
+    public ImportGamesService(DataAccess dataAccess, int workers, int batchSize) {
+        this.dataAccess = dataAccess;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ImportGamesResult importGames(ImportGamesRequest request) throws DataAccessException {
+        if (request.archive() == null || request.format() == null) {
+            throw new DataAccessException("Error: bad request");
+        }
+        long start = System.nanoTime();
+        BlockingQueue<Object> archive = new ArrayBlockingQueue<>(workers * QUEUE_PER_WORKER);
+        BlockingQueue<GameData> parsed = new ArrayBlockingQueue<>(Math.max(batchSize, workers * QUEUE_PER_WORKER));
+        AtomicLong read = new AtomicLong();
+        AtomicLong imported = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+
+        ExecutorService stages = Executors.newFixedThreadPool(workers + 1, runnable -> {
+            Thread thread = new Thread(runnable, "game-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers + 1);
+            AtomicInteger liveWorkers = new AtomicInteger(workers);
+            futures.add(stages.submit(() -> readArchive(request, archive, read, rejected, liveWorkers)));
+            for (int i = 0; i < workers; i++) {
+                futures.add(stages.submit(replayGames(request.format(), archive, parsed, rejected, liveWorkers)));
+            }
+
+            writeGames(parsed, read, imported, rejected, start, request);
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            return result(read, imported, rejected, start);
+        } catch (ExecutionException e) {
+            throw new ImportGamesException("Error: import failed: " + e.getCause().getMessage(), e.getCause(),
+                    result(read, imported, rejected, start));
+        } catch (DataAccessException e) {
+            throw new ImportGamesException(e.getMessage(), e, result(read, imported, rejected, start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportGamesException("Error: import interrupted", e, result(read, imported, rejected, start));
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    private Void readArchive(ImportGamesRequest request, BlockingQueue<Object> archive, AtomicLong read,
+                             AtomicLong rejected, AtomicInteger liveWorkers) throws Exception {
+        try {
+            if (request.format() == ImportGamesRequest.Format.PGN) {
+                PgnReader reader = new PgnReader(request.archive());
+                while (true) {
+                    PgnGame game;
+                    try {
+                        game = reader.next();
+                    } catch (IllegalArgumentException e) {
+//                        a malformed tag spoils one game; the reader has already moved past it
+                        read.incrementAndGet();
+                        rejected.incrementAndGet();
+                        continue;
+                    }
+                    if (game == null || !offer(archive, game, liveWorkers)) { break; }
+                    read.incrementAndGet();
+                }
+            } else {
+                BufferedReader reader = new BufferedReader(request.archive());
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isBlank()) { continue; }
+                    if (!offer(archive, line.strip(), liveWorkers)) { break; }
+                    read.incrementAndGet();
+                }
+            }
+        } finally {
+//            even after a failure, so the workers and then the writer finish
+            for (int i = 0; i < workers; i++) {
+                if (!offer(archive, END_OF_ARCHIVE, liveWorkers)) { break; }
+            }
+        }
+        return null;
+    }
+
+//    waits for room in the queue while any worker is left to empty it; false once they have all stopped
+    private static boolean offer(BlockingQueue<Object> archive, Object item, AtomicInteger liveWorkers)
+            throws InterruptedException {
+        while (!archive.offer(item, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (liveWorkers.get() == 0) { return false; }
+        }
+        return true;
+    }
+
+    private Callable<Void> replayGames(ImportGamesRequest.Format format, BlockingQueue<Object> archive,
+                                       BlockingQueue<GameData> parsed, AtomicLong rejected,
+                                       AtomicInteger liveWorkers) {
+        return () -> {
+            PgnReplay replay = new PgnReplay();
+            try {
+                for (Object item = archive.take(); item != END_OF_ARCHIVE; item = archive.take()) {
+                    GameData game = format == ImportGamesRequest.Format.PGN
+                            ? fromPgn(replay, (PgnGame) item) : fromFen((String) item);
+                    if (game == null) {
+                        rejected.incrementAndGet();
+                    } else {
+                        parsed.put(game);
+                    }
+                }
+            } finally {
+                liveWorkers.decrementAndGet();
+                parsed.put(END_OF_GAMES);
+            }
+            return null;
+        };
+    }
+
+//    counts into imported as each batch is stored, so a failure can still report what was written
+    private void writeGames(BlockingQueue<GameData> parsed, AtomicLong read, AtomicLong imported, AtomicLong rejected,
+                            long start, ImportGamesRequest request) throws DataAccessException, InterruptedException {
+        List<GameData> batch = new ArrayList<>(batchSize);
+        int finishedWorkers = 0;
+        while (finishedWorkers < workers) {
+            GameData game = parsed.take();
+            if (game == END_OF_GAMES) {
+                finishedWorkers++;
+            } else {
+                batch.add(game);
+            }
+            if (batch.size() == batchSize || (finishedWorkers == workers && !batch.isEmpty())) {
+                imported.addAndGet(dataAccess.createGames(batch).size());
+                batch.clear();
+                if (request.progress() != null) {
+                    request.progress().accept(result(read, imported, rejected, start));
+                }
+            }
+        }
+    }
+
+    private static ImportGamesResult result(AtomicLong read, AtomicLong imported, AtomicLong rejected, long start) {
+        return new ImportGamesResult(read.get(), imported.get(), rejected.get(), System.nanoTime() - start);
+    }
+
+    private static GameData fromPgn(PgnReplay replay, PgnGame pgn) {
+        ReplayResult result = replay.replay(pgn);
+        if (!result.isComplete()) { return null; }
+        return new GameData(0, null, null, gameName(pgn), result.game());
+    }
+
+    /**
+     * @return the game set up from one FEN record, or null to reject the record
+     */
+    protected GameData fromFen(String fen) {
+        try {
+            return new GameData(0, null, null, truncate(fen), ChessGame.fromFen(fen));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+//    players' names rather than usernames, since they aren't accounts on this server
+    private static String gameName(PgnGame pgn) {
+        String white = pgn.tag("White");
+        String black = pgn.tag("Black");
+        String name = white != null && black != null ? white + " vs " + black : pgn.tag("Event");
+        return truncate(name == null || name.isBlank() ? "Imported game" : name);
+    }
+
+    private static String truncate(String name) {
+        return name.length() <= MAX_NAME_LENGTH ? name : name.substring(0, MAX_NAME_LENGTH);
+    }
+}
@@ -8,6 +8,7 @@ import model.GameData;
 import org.junit.jupiter.api.Test;
 
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +36,26 @@ public class GameDAOTests extends DataAccessTestBase {
         assertEquals("PlayerGame", created.gameName());
     }
 
+    @Test
+    public void createGamesInOneBatch() throws DataAccessException {
+        List<GameData> games = List.of(
+                new GameData(0, null, null, "Batch1", new ChessGame()),
+                new GameData(0, "white", null, "Batch2", new ChessGame()));
+
+        List<GameData> created = dataAccess.createGames(games);
+
+        assertEquals(2, created.size());
+        assertTrue(created.get(1).gameID() > created.get(0).gameID(), "IDs should follow batch order");
+        assertEquals("Batch2", dataAccess.getGame(created.get(1).gameID()).gameName());
+        assertEquals(2, dataAccess.listGames().size());
+    }
+
+    @Test
+    public void createGamesEmptyBatch() throws DataAccessException {
+        assertTrue(dataAccess.createGames(List.of()).isEmpty());
+        assertTrue(dataAccess.listGames().isEmpty());
+    }
+
     @Test
     public void getGameSuccess() throws DataAccessException {
         GameData game = new GameData(0, null, null, "FindMe", new ChessGame());
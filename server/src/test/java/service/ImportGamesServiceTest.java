@@ -0,0 +1,193 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.game.ImportGamesException;
+import service.game.ImportGamesRequest;
+import service.game.ImportGamesResult;
+import service.game.ImportGamesService;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportGamesServiceTest {
+    private static final String OPERA_GAME = """
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+
+            1.e4 e5 2.Nf3 d6 3.d4 Bg4 4.dxe5 Bxf3 5.Qxf3 dxe5 6.Bc4 Nf6 7.Qb3 Qe7
+            8.Nc3 c6 9.Bg5 b5 10.Nxb5 cxb5 11.Bxb5+ Nbd7 12.O-O-O Rd8 13.Rxd7 Rxd7
+            14.Rd1 Qe6 15.Bxd7+ Nxd7 16.Qb8+ Nxb8 17.Rd8# 1-0
+
+            """;
+    private static final String ILLEGAL_GAME = """
+            [Event "Bad game"]
+
+            1. e4 e5 2. Ke3 *
+
+            """;
+
+    private MemoryDataAccess dataAccess;
+
+    @BeforeEach
+    void setUp() {
+        dataAccess = new MemoryDataAccess();
+    }
+
+    @Test
+    void importsLegalPgnGames() throws DataAccessException {
+        String archive = OPERA_GAME + ILLEGAL_GAME + OPERA_GAME;
+        ImportGamesService service = new ImportGamesService(dataAccess, 2, 10);
+        ImportGamesResult result = service.importGames(
+                new ImportGamesRequest(new StringReader(archive), ImportGamesRequest.Format.PGN));
+
+        assertEquals(3, result.read());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(2, dataAccess.listGames().size());
+        for (GameData game : dataAccess.listGames()) {
+            assertEquals("Paul Morphy vs Duke Karl / Count Isouard", game.gameName());
+            assertNull(game.whiteUsername());
+            assertTrue(game.game().isInCheckmate(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    @Test
+    void importsFenRecords() throws DataAccessException {
+        String archive = """
+                rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1
+
+                not a position
+                6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1
+                """;
+        ImportGamesResult result = new ImportGamesService(dataAccess, 3, 1).importGames(
+                new ImportGamesRequest(new StringReader(archive), ImportGamesRequest.Format.FEN));
+
+        assertEquals(3, result.read());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.rejected());
+        assertTrue(dataAccess.listGames().stream()
+                .anyMatch(game -> game.gameName().equals("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")));
+    }
+
+    @Test
+    void streamsLargeArchivesInBatches() throws DataAccessException {
+        int games = 1_000;
+        List<ImportGamesResult> progress = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        MemoryDataAccess counting = new MemoryDataAccess() {
+            @Override
+            public List<GameData> createGames(List<GameData> batch) throws DataAccessException {
+                batchSizes.add(batch.size());
+                return super.createGames(batch);
+            }
+        };
+
+        ImportGamesResult result = new ImportGamesService(counting, 4, 64).importGames(new ImportGamesRequest(
+                new StringReader(OPERA_GAME.repeat(games)), ImportGamesRequest.Format.PGN, progress::add));
+
+        assertEquals(games, result.imported());
+        assertEquals(games, counting.listGames().size());
+        assertTrue(result.gamesPerSecond() > 0);
+        assertEquals(16, batchSizes.size());
+        assertTrue(batchSizes.subList(0, 15).stream().allMatch(size -> size == 64));
+        assertEquals(progress.size(), batchSizes.size());
+        assertEquals(games, progress.get(progress.size() - 1).imported());
+    }
+
+    @Test
+    void writeFailureStopsImport() {
+        MemoryDataAccess failing = new MemoryDataAccess() {
+            @Override
+            public List<GameData> createGames(List<GameData> batch) throws DataAccessException {
+                throw new DataAccessException("Error: database unavailable");
+            }
+        };
+        ImportGamesService service = new ImportGamesService(failing, 2, 4);
+
+        DataAccessException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+                DataAccessException.class, () -> service.importGames(new ImportGamesRequest(
+                        new StringReader(OPERA_GAME.repeat(2_000)), ImportGamesRequest.Format.PGN))));
+        assertTrue(exception.getMessage().contains("database unavailable"));
+    }
+
+    @Test
+    void failedImportReportsTheBatchesAlreadyStored() throws DataAccessException {
+        MemoryDataAccess failsSecondBatch = new MemoryDataAccess() {
+            private int batches;
+
+            @Override
+            public List<GameData> createGames(List<GameData> batch) throws DataAccessException {
+                if (++batches == 2) { throw new DataAccessException("Error: database unavailable"); }
+                return super.createGames(batch);
+            }
+        };
+        ImportGamesService service = new ImportGamesService(failsSecondBatch, 2, 4);
+
+        ImportGamesException exception = assertThrows(ImportGamesException.class, () -> service.importGames(
+                new ImportGamesRequest(new StringReader(OPERA_GAME.repeat(20)), ImportGamesRequest.Format.PGN)));
+        assertTrue(exception.getMessage().contains("database unavailable"));
+        assertEquals(4, exception.getPartialResult().imported());
+        assertEquals(4, failsSecondBatch.listGames().size());
+    }
+
+    @Test
+    void malformedGamesAreRejected() throws DataAccessException {
+        String archive = "[Event broken]\n[Site \"?\"]\n\n1. e4 *\n\n" + OPERA_GAME
+                + "[White \"open\n\n1. d4 *\n\n";
+        ImportGamesResult result = new ImportGamesService(dataAccess, 2, 4).importGames(
+                new ImportGamesRequest(new StringReader(archive), ImportGamesRequest.Format.PGN));
+
+        assertEquals(3, result.read());
+        assertEquals(1, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(1, dataAccess.listGames().size());
+    }
+
+    @Test
+    void unreadableArchiveFails() {
+        ImportGamesService service = new ImportGamesService(dataAccess, 2, 4);
+        Reader broken = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk gone");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DataAccessException exception = assertThrows(DataAccessException.class, () -> service.importGames(
+                new ImportGamesRequest(broken, ImportGamesRequest.Format.PGN)));
+        assertTrue(exception.getMessage().contains("import failed"));
+
+        assertThrows(DataAccessException.class, () -> service.importGames(
+                new ImportGamesRequest(null, ImportGamesRequest.Format.PGN)));
+    }
+
+    @Test
+    void workerFailureDoesNotStrandTheReader() {
+        ImportGamesService service = new ImportGamesService(dataAccess, 2, 4) {
+            @Override
+            protected GameData fromFen(String fen) {
+                throw new IllegalStateException("replay bug");
+            }
+        };
+        String archive = "4k3/8/8/8/8/8/8/4K3 w - - 0 1\n".repeat(5_000);
+
+        DataAccessException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+                DataAccessException.class, () -> service.importGames(
+                        new ImportGamesRequest(new StringReader(archive), ImportGamesRequest.Format.FEN))));
+        assertTrue(exception.getMessage().contains("replay bug"));
+    }
+}
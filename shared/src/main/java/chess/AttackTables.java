@@ -0,0 +1,129 @@
+package chess;
+
+/**
+ * Precomputed board geometry shared by the move calculators, check detection
+ * and the engine.
+ * <p>
+ * Squares are numbered (row - 1) * 8 + (col - 1), and every table is a
+ * bitboard using that numbering. Knight, king and pawn targets and the eight
+ * rays from every square are built once when the class loads. Sliding attacks
+ * cut each ray at its first blocker.
+ */
+public final class AttackTables {
+//    Ray directions; the first four run towards higher square numbers
+    public static final int NORTH = 0;
+    public static final int EAST = 1;
+    public static final int NORTH_EAST = 2;
+    public static final int NORTH_WEST = 3;
+    public static final int SOUTH = 4;
+    public static final int WEST = 5;
+    public static final int SOUTH_WEST = 6;
+    public static final int SOUTH_EAST = 7;
+
+    private static final int[] ROW_STEP = {1, 0, 1, 1, -1, 0, -1, -1};
+    private static final int[] COL_STEP = {0, 1, 1, -1, 0, -1, -1, 1};
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            for (int[] step : knightSteps) {
+                KNIGHT[square] |= bit(row + step[0], col + step[1]);
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                KING[square] |= bit(row + ROW_STEP[dir], col + COL_STEP[dir]);
+                for (int r = row + ROW_STEP[dir], c = col + COL_STEP[dir]; onBoard(r, c);
+                     r += ROW_STEP[dir], c += COL_STEP[dir]) {
+                    RAYS[dir][square] |= bit(r, c);
+                }
+            }
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = RAYS[dir][from];
+                while (ray != 0) {
+                    int to = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[from][to] = RAYS[dir][from] & ~RAYS[dir][to] & ~(1L << to);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    private static long bit(int row, int col) {
+        return onBoard(row, col) ? 1L << (row * 8 + col) : 0;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color attacks from the square
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @return every square from the square outward in one direction, excluding the square itself
+     */
+    public static long ray(int direction, int square) {
+        return RAYS[direction][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file or
+     * diagonal, or 0 if they do not share one
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return rayAttacks(NORTH, square, occupied) | rayAttacks(EAST, square, occupied)
+                | rayAttacks(SOUTH, square, occupied) | rayAttacks(WEST, square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return rayAttacks(NORTH_EAST, square, occupied) | rayAttacks(NORTH_WEST, square, occupied)
+                | rayAttacks(SOUTH_EAST, square, occupied) | rayAttacks(SOUTH_WEST, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares a slider reaches in one direction, up to and including the first blocker
+     */
+    public static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) { return ray; }
+        int blocker = direction < SOUTH
+                ? Long.numberOfTrailingZeros(blockers)
+                : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][blocker];
+    }
+}
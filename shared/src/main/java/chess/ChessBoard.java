@@ -1,7 +1,8 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -9,12 +10,47 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoardAdapter.class)
 public class ChessBoard {
-    ChessPiece[][] squares  = new ChessPiece[8][8];
+    /** Phase of a full set of pieces; see {@link #phase()} */
+    public static final int TOTAL_PHASE = PieceSquareTables.TOTAL_PHASE;
+
+//    One bitboard per piece kind, indexed by pieceIndex(color, type).
+//    Bit (row-1)*8 + (col-1) is set when that kind of piece stands on the square.
+    private long[] pieceBitboards = new long[12];
+    private long[] colorOccupancy = new long[2];
+    private long occupied;
+    private int[] kingSquares = {-1, -1};
+    private long zobristKey;
+//    Material plus piece-square scores (white minus black) and the game phase, kept up to date
+//    by setPiece once first used. Only these are transient; ChessBoardAdapter writes just the
+//    bitboards and rebuilds the rest by placing the pieces, and the scores are recomputed lazily.
+    private transient int midgameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    private transient boolean scoresReady;
+
     public ChessBoard() {
         
     }
 
+    /**
+     * Creates a copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        this.pieceBitboards = other.pieceBitboards.clone();
+        this.colorOccupancy = other.colorOccupancy.clone();
+        this.occupied = other.occupied;
+        this.kingSquares = other.kingSquares.clone();
+        this.zobristKey = other.zobristKey;
+        this.midgameScore = other.midgameScore;
+        this.endgameScore = other.endgameScore;
+        this.phase = other.phase;
+        this.scoresReady = other.scoresReady;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -22,7 +58,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        setPiece(squareIndex(position), piece);
     }
 
     /**
@@ -33,7 +69,215 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow()-1][position.getColumn()-1];
+        return pieceAt(squareIndex(position));
+    }
+
+    static int squareIndex(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int squareIndex(ChessPosition position) {
+        return squareIndex(position.getRow(), position.getColumn());
+    }
+
+    static ChessPosition positionOf(int square) {
+        return ChessPosition.ofSquare(square);
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static ChessPiece pieceForIndex(int pieceIndex) {
+        return ChessPiece.ofIndex(pieceIndex);
+    }
+
+    /**
+     * @return the piece index on the square, or -1 if it is empty
+     */
+    int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) { return -1; }
+        int first = (colorOccupancy[0] & bit) != 0 ? 0 : 6;
+        for (int i = first; i < first + 6; i++) {
+            if ((pieceBitboards[i] & bit) != 0) { return i; }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the piece on a square given by index, (row - 1) * 8 + (col - 1)
+     *
+     * @return the piece, or null if the square is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        int index = pieceIndexAt(square);
+        return index < 0 ? null : pieceForIndex(index);
+    }
+
+    void setPiece(int square, ChessPiece piece) {
+        long bit = 1L << square;
+        int previous = pieceIndexAt(square);
+        if (previous >= 0) {
+            pieceBitboards[previous] &= ~bit;
+            colorOccupancy[previous / 6] &= ~bit;
+            occupied &= ~bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[previous][square];
+            if (scoresReady) { addScores(previous, square, -1); }
+        }
+        if (piece != null) {
+            int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            pieceBitboards[index] |= bit;
+            colorOccupancy[index / 6] |= bit;
+            occupied |= bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+            if (scoresReady) { addScores(index, square, 1); }
+        }
+        if (isKingIndex(previous)) { updateKingSquare(previous / 6); }
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING) {
+            updateKingSquare(piece.getTeamColor().ordinal());
+        }
+    }
+
+    private void addScores(int pieceIndex, int square, int sign) {
+        midgameScore += sign * PieceSquareTables.MIDGAME[pieceIndex][square];
+        endgameScore += sign * PieceSquareTables.ENDGAME[pieceIndex][square];
+        phase += sign * PieceSquareTables.PHASE_WEIGHT[pieceIndex % 6];
+    }
+
+    private void ensureScores() {
+        if (scoresReady) { return; }
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (int index = 0; index < 12; index++) {
+            long bits = pieceBitboards[index];
+            while (bits != 0) {
+                addScores(index, Long.numberOfTrailingZeros(bits), 1);
+                bits &= bits - 1;
+            }
+        }
+        scoresReady = true;
+    }
+
+    /**
+     * @return material plus piece-square score for the middlegame, white minus black
+     */
+    public int midgameScore() {
+        ensureScores();
+        return midgameScore;
+    }
+
+    /**
+     * @return material plus piece-square score for the endgame, white minus black
+     */
+    public int endgameScore() {
+        ensureScores();
+        return endgameScore;
+    }
+
+    /**
+     * @return how much non-pawn material is left, from 0 (bare kings and pawns) up to
+     * {@link #TOTAL_PHASE} for a full set; can exceed it after promotions
+     */
+    public int phase() {
+        ensureScores();
+        return phase;
+    }
+
+    /**
+     * @return the material value of a piece type in centipawns, the one the scores count,
+     * tapered by the current phase; 0 for a king
+     */
+    public int materialValue(ChessPiece.PieceType type) {
+        return PieceSquareTables.materialValue(type.ordinal(), Math.min(phase(), TOTAL_PHASE));
+    }
+
+    private static boolean isKingIndex(int pieceIndex) {
+        return pieceIndex >= 0 && pieceIndex % 6 == ChessPiece.PieceType.KING.ordinal();
+    }
+
+    private void updateKingSquare(int color) {
+        long kings = pieceBitboards[color * 6 + ChessPiece.PieceType.KING.ordinal()];
+        kingSquares[color] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return the square of the given team's king, or -1 if it has none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Gets the Zobrist key of the piece placement, which is kept up to date as
+     * pieces are added and removed
+     *
+     * @return 64-bit hash of where every piece stands
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return bitboard of the squares holding the given piece, bit (row - 1) * 8 + (col - 1) per square
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of the squares holding the given team's pieces
+     */
+    public long occupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * Determines whether any piece of the attacking team attacks a square, by
+     * looking outward from the square with the precomputed {@link AttackTables}.
+     *
+     * @param square   the square index to test
+     * @param attacker the team whose attacks count
+     * @return True if the square is attacked
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        return attackersTo(square, attacker, occupied) != 0;
+    }
+
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker, long occupancy) {
+        return attackersTo(square, attacker, occupancy) != 0;
+    }
+
+    /**
+     * Finds every piece of the attacking team that attacks a square. Only pieces
+     * still present in the given occupancy count, and sliding rays stop at the
+     * first square it marks as occupied, so callers can test hypothetical boards
+     * by editing the mask instead of the board.
+     *
+     * @return bitboard of the attacking pieces
+     */
+    public long attackersTo(int square, ChessGame.TeamColor attacker, long occupancy) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long rooksAndQueens = pieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        long bishopsAndQueens = pieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+
+//        a pawn attacks the squares a pawn of the other color on the target would attack
+        long attackers = (AttackTables.knightAttacks(square) & pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (AttackTables.kingAttacks(square) & pieces(attacker, ChessPiece.PieceType.KING))
+                | (AttackTables.pawnAttacks(defender, square) & pieces(attacker, ChessPiece.PieceType.PAWN))
+                | (AttackTables.rookAttacks(square, occupancy) & rooksAndQueens)
+                | (AttackTables.bishopAttacks(square, occupancy) & bishopsAndQueens);
+        return attackers & occupancy;
     }
 
     /**
@@ -41,35 +285,105 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int row = 0; row < 8; row++) {
-            for (int column = 0; column < 8; column++) {
-                squares[row][column] = null;
-            }
-        }
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        occupied = 0L;
+        Arrays.fill(kingSquares, -1);
+        zobristKey = 0L;
+        scoresReady = false;
 
-        addPiece(new ChessPosition(1,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
         for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(2, i), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
         for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(7, i), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
-        addPiece(new ChessPosition(8,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+    }
+
+//    FEN letter of each piece index: white types in PieceType order, then black
+    private static final String FEN_PIECES = "KQBNRPkqbnrp";
+
+    /**
+     * Reads the piece placement field of a FEN record into this board, which
+     * should be empty. Reads in place with no intermediate strings.
+     *
+     * @param fen   the FEN record
+     * @param index where the placement field starts
+     * @return the index just past the placement field
+     * @throws IllegalArgumentException if the field does not describe eight full rows
+     */
+    int parseFenPlacement(String fen, int index) {
+        int row = 8;
+        int col = 1;
+        for (; index < fen.length(); index++) {
+            char c = fen.charAt(index);
+            if (c == ' ') { break; }
+            if (c == '/') {
+                if (col != 9 || row == 1) { throw badPlacement(fen, index); }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) { throw badPlacement(fen, index); }
+            } else {
+                int pieceIndex = FEN_PIECES.indexOf(c);
+                if (pieceIndex < 0 || col > 8) { throw badPlacement(fen, index); }
+                setPiece(squareIndex(row, col++), pieceForIndex(pieceIndex));
+            }
+        }
+        if (row != 1 || col != 9) { throw badPlacement(fen, index); }
+        return index;
+    }
+
+    private static IllegalArgumentException badPlacement(String fen, int index) {
+        return new IllegalArgumentException("Bad FEN placement at " + index + ": " + fen);
+    }
+
+    /**
+     * Appends the piece placement field of a FEN record for this board
+     */
+    void appendFen(StringBuilder fen) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int pieceIndex = pieceIndexAt(squareIndex(row, col));
+                if (pieceIndex < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) { fen.append((char) ('0' + empty)); }
+                empty = 0;
+                fen.append(FEN_PIECES.charAt(pieceIndex));
+            }
+            if (empty > 0) { fen.append((char) ('0' + empty)); }
+            if (row > 1) { fen.append('/'); }
+        }
+    }
+
+    /**
+     * @return the piece placement field of a FEN record for this board
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(72);
+        appendFen(fen);
+        return fen.toString();
     }
 
     private char getPieceSymbol(ChessPiece piece) {
@@ -90,12 +404,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -103,7 +417,7 @@ public class ChessBoard {
         StringBuilder sb = new StringBuilder();
         for (int row = 8; row >= 1; row--) {
             for (int col = 1; col <= 8; col++) {
-                ChessPiece piece = getPiece(new ChessPosition(row, col));
+                ChessPiece piece = pieceAt(squareIndex(row, col));
                 if (piece == null) {
                     sb.append(". ");
                 } else {
@@ -0,0 +1,111 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson form of a {@link ChessBoard}: just the twelve piece bitboards, since
+ * the occupancy masks, king squares and Zobrist key all follow from them.
+ * <p>
+ * Boards stored before the bitboards were added hold a {@code squares} array
+ * of eight rows of pieces or nulls; those are read as well, so games saved in
+ * either form load with every piece in place.
+ */
+class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject().name("pieceBitboards").beginArray();
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                out.value(board.pieces(color, type));
+            }
+        }
+        out.endArray().endObject();
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceBitboards" -> readBitboards(in, board);
+                case "squares" -> readSquares(in, board);
+//                occupancy, king squares and the key are derived, so older copies of them are ignored
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static void readBitboards(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int index = 0; in.hasNext(); index++) {
+            long pieces = in.nextLong();
+            if (index >= 12) { throw new JsonSyntaxException("Too many bitboards in board"); }
+            for (; pieces != 0; pieces &= pieces - 1) {
+                board.setPiece(Long.numberOfTrailingZeros(pieces), ChessBoard.pieceForIndex(index));
+            }
+        }
+        in.endArray();
+    }
+
+//    squares[row - 1][col - 1], each a {"pieceColor", "type"} object or null
+    private static void readSquares(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                ChessPiece piece = readPiece(in);
+                if (piece == null) { continue; }
+                if (row > 8 || col > 8) { throw new JsonSyntaxException("Square off the board: " + row + "," + col); }
+                board.setPiece(ChessBoard.squareIndex(row, col), piece);
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+
+    private static ChessPiece readPiece(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceColor" -> color = enumValue(ChessGame.TeamColor.class, in.nextString());
+                case "type" -> type = enumValue(ChessPiece.PieceType.class, in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) { throw new JsonSyntaxException("Piece without a color or type"); }
+        return ChessPiece.of(color, type);
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Unknown " + type.getSimpleName() + ": " + name, e);
+        }
+    }
+}
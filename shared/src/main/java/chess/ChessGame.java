@@ -1,7 +1,11 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -10,6 +14,7 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGameAdapterFactory.class)
 public class ChessGame {
     private ChessBoard board;
     private TeamColor currentTurn;
@@ -25,10 +30,254 @@ public class ChessGame {
 //    En Passant Tracking
     private ChessMove lastMove = null;
 
+//    Move clocks: moves since the last capture or pawn move, and the number of the current full move
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+
+//    Side to move, castling and en passant parts of the Zobrist key; the board keeps the rest
+    private transient long stateKey;
+
+//    Zobrist keys of the positions before each move played, oldest first, for spotting repetitions.
+//    Gson stores only the keyHistoryCount keys in use; see ChessGameAdapterFactory.
+    private transient long[] keyHistory = new long[64];
+    private transient int keyHistoryCount;
+
+//    Undo records for doMove/undoMove, one packed long per move:
+//    bits 0-15 the move, 16-19 captured piece index + 1, 20-21 move kind,
+//    22-27 castling flags before the move, 28-43 the previous lastMove, 44 the mover,
+//    45-60 the halfmove clock before the move
+    private transient long[] undoStack = new long[64];
+    private transient int undoCount;
+    private transient LegalMoveGenerator searchGenerator = new LegalMoveGenerator();
+
+//    Last status worked out and the legal moves of the team to move, each published whole, so
+//    threads that only read a game (observers, status checks) can share them safely
+    private transient volatile CachedStatus cachedStatus;
+    private transient volatile LegalMoves legalMoves;
+
+    private static final int NORMAL_MOVE = 0;
+    private static final int CASTLE_MOVE = 1;
+    private static final int EN_PASSANT_MOVE = 2;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+//    a1, c1, ... b2, d2, ...: the squares where (row + col) is even
+    private static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+//    generator state is kept per thread rather than per game, for the same reason as the caches
+    private static final ThreadLocal<LegalMoveGenerator> GENERATORS =
+            ThreadLocal.withInitial(LegalMoveGenerator::new);
+    private static final ThreadLocal<MoveList> SCRATCH_MOVES = ThreadLocal.withInitial(MoveList::new);
+
+    private record CachedStatus(long key, TeamColor team, GameStatus status) {
+    }
+
+//    legal moves of the team to move in the position with this key, grouped by start square:
+//    the moves from square s are moves[start[s]] up to start[s + 1]
+    private record LegalMoves(long key, int[] moves, int[] start) {
+        int count() {
+            return start[64];
+        }
+    }
+
     public ChessGame() {
         this.board = new ChessBoard();
         board.resetBoard();
         this.currentTurn = TeamColor.WHITE;
+        refreshStateKey();
+    }
+
+    /**
+     * Creates an independent copy of a game, with its own board. The copy
+     * starts with no move history, so it cannot undo moves played on the original.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.currentTurn = other.currentTurn;
+        restoreCastlingFlags(other.castlingFlags());
+        this.lastMove = other.lastMove;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.stateKey = other.stateKey;
+        this.keyHistory = Arrays.copyOf(other.keyHistory, Math.max(other.keyHistoryCount, 64));
+        this.keyHistoryCount = other.keyHistoryCount;
+    }
+
+    /**
+     * Creates a game from a FEN record. Castling rights become the king and
+     * rook moved flags, and the en passant square becomes the double pawn push
+     * that allows it. The two move clocks may be left off, in which case they
+     * start at 0 and 1. The record is read in a single pass, without regular
+     * expressions or splitting it into strings.
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @return a game set up in that position
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        int i = board.parseFenPlacement(fen, skipSpaces(fen, 0));
+        int length = fen.length();
+
+        ChessGame game = new ChessGame();
+        game.board = board;
+        i = skipSpaces(fen, i);
+        char side = i < length ? fen.charAt(i++) : ' ';
+        if (side != 'w' && side != 'b') { throw badFen(fen, i); }
+        game.currentTurn = side == 'b' ? TeamColor.BLACK : TeamColor.WHITE;
+
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                int right = "KQkq".indexOf(fen.charAt(i));
+                if (right < 0) { throw badFen(fen, i); }
+                rights |= 1 << right;
+            }
+            if (rights == 0) { throw badFen(fen, i); }
+        }
+        game.whiteKingSideRookMoved = (rights & 1) == 0;
+        game.whiteQueenSideRookMoved = (rights & 2) == 0;
+        game.blackKingSideRookMoved = (rights & 4) == 0;
+        game.blackQueenSideRookMoved = (rights & 8) == 0;
+        game.whiteKingMoved = (rights & 3) == 0;
+        game.blackKingMoved = (rights & 12) == 0;
+
+        i = skipSpaces(fen, i);
+        if (i >= length) { throw badFen(fen, i); }
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            char file = fen.charAt(i);
+            char rank = i + 1 < length ? fen.charAt(i + 1) : ' ';
+            if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) { throw badFen(fen, i); }
+            int col = file - 'a' + 1;
+            boolean whitePushed = rank == '3';
+            game.lastMove = ChessMove.of(ChessPosition.of(whitePushed ? 2 : 7, col),
+                    ChessPosition.of(whitePushed ? 4 : 5, col), null);
+            i += 2;
+        }
+
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int start = i;
+            int halfmoves = 0;
+            for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+                halfmoves = halfmoves * 10 + fen.charAt(i) - '0';
+            }
+            i = skipSpaces(fen, i);
+            int fullmoves = 0;
+            int fullStart = i;
+            for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+                fullmoves = fullmoves * 10 + fen.charAt(i) - '0';
+            }
+            if (i == start || i == fullStart || skipSpaces(fen, i) != length) { throw badFen(fen, i); }
+            game.halfmoveClock = halfmoves;
+            game.fullmoveNumber = Math.max(fullmoves, 1);
+        }
+        game.refreshStateKey();
+        return game;
+    }
+
+    /**
+     * Sets up a game from the parts {@link PositionCodec} stores, with no move history
+     *
+     * @param castlingFlags  the king and rook moved flags, as {@link #castlingFlags()} packs them
+     * @param enPassantFile  the column of a pawn that just moved two squares, or 0
+     */
+    static ChessGame restore(ChessBoard board, TeamColor turn, int castlingFlags, int enPassantFile,
+                             int halfmoveClock, int fullmoveNumber) {
+        ChessGame game = new ChessGame();
+        game.board = board;
+        game.currentTurn = turn;
+        game.restoreCastlingFlags(castlingFlags);
+        if (enPassantFile != 0) {
+            boolean whitePushed = turn == TeamColor.BLACK;
+            game.lastMove = ChessMove.of(ChessPosition.of(whitePushed ? 2 : 7, enPassantFile),
+                    ChessPosition.of(whitePushed ? 4 : 5, enPassantFile), null);
+        }
+        game.halfmoveClock = halfmoveClock;
+        game.fullmoveNumber = fullmoveNumber;
+        game.refreshStateKey();
+        return game;
+    }
+
+    /**
+     * @return the keys of the positions before each move played, oldest first
+     */
+    long[] keyHistory() {
+        return Arrays.copyOf(keyHistory, keyHistoryCount);
+    }
+
+    /**
+     * Finishes a game Gson has filled in: puts back the repetition history
+     * and works out the Zobrist state key, which isn't stored
+     */
+    void restoreAfterLoad(long[] keys) {
+        keyHistory = Arrays.copyOf(keys, Math.max(keys.length, 64));
+        keyHistoryCount = keys.length;
+        invalidateCaches();
+        refreshStateKey();
+    }
+
+    private static int skipSpaces(String fen, int index) {
+        while (index < fen.length() && fen.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static IllegalArgumentException badFen(String fen, int index) {
+        return new IllegalArgumentException("Bad FEN at " + index + ": " + fen);
+    }
+
+    /**
+     * Writes the game as a FEN record. Castling rights come from the king and
+     * rook moved flags, and the en passant square from the last move.
+     *
+     * @return the position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        board.appendFen(fen);
+        fen.append(currentTurn == TeamColor.WHITE ? " w " : " b ");
+        int rightsStart = fen.length();
+        if (canCastleKingSide(TeamColor.WHITE)) { fen.append('K'); }
+        if (canCastleQueenSide(TeamColor.WHITE)) { fen.append('Q'); }
+        if (canCastleKingSide(TeamColor.BLACK)) { fen.append('k'); }
+        if (canCastleQueenSide(TeamColor.BLACK)) { fen.append('q'); }
+        if (fen.length() == rightsStart) { fen.append('-'); }
+        fen.append(' ');
+        int enPassant = enPassantSquare(currentTurn);
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and rising after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the square the team to move would land on capturing en passant, numbered
+     * (row - 1) * 8 + (col - 1), or -1 if the last move was not a double pawn push
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare(currentTurn);
     }
 
     /**
@@ -45,6 +294,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTurn = team;
+        invalidateCaches();
+        refreshStateKey();
     }
 
     /**
@@ -65,28 +316,151 @@ public class ChessGame {
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
         if (piece == null) {return null;}
-        Collection<ChessMove> allMoves = new ArrayList<>();
+        int square = ChessBoard.squareIndex(startPosition);
+        if (piece.getTeamColor() == currentTurn) {
+            LegalMoves legal = legalMoves();
+            return toChessMoves(legal, legal.start()[square], legal.start()[square + 1]);
+        }
+        MoveList moves = SCRATCH_MOVES.get();
+        moves.clear();
+        moveGenerator(piece.getTeamColor()).addMoves(square, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Gets every valid move for one team
+     *
+     * @param team the team to get valid moves for
+     * @return all moves the team could legally make, whether or not it is their turn
+     */
+    public Collection<ChessMove> validMoves(TeamColor team) {
+        if (team == currentTurn) {
+            LegalMoves legal = legalMoves();
+            return toChessMoves(legal, 0, legal.count());
+        }
+        MoveList moves = SCRATCH_MOVES.get();
+        moves.clear();
+        moveGenerator(team).addAllMoves(moves);
+        return moves.toChessMoves();
+    }
 
-        Collection <ChessMove> basicMoves = piece.pieceMoves(board, startPosition);
+    /**
+     * Fills a move list with every legal move for the team whose turn it is,
+     * encoded as described in {@link MoveList}. Nothing is allocated unless the
+     * list has to grow, so search and analysis should prefer this over validMoves.
+     * Like doMove, the generate methods are for the one thread that owns the
+     * game; validMoves and getStatus may be called from several at once.
+     *
+     * @param moves the list to fill; it is cleared first
+     */
+    public void generateMoves(MoveList moves) {
+        moves.clear();
+        searchGenerator().addAllMoves(moves);
+    }
 
-        for (ChessMove move : basicMoves) {
-            if (moveLeavesKingInCheck(move, piece.getTeamColor())) {
-                allMoves.add(move);
-            }
+    /**
+     * Fills a move list with the legal captures, en passant captures and
+     * promotions for the team whose turn it is
+     *
+     * @param moves the list to fill; it is cleared first
+     */
+    public void generateTacticalMoves(MoveList moves) {
+        moves.clear();
+        searchGenerator().addAllMoves(moves, LegalMoveGenerator.TACTICAL_MOVES);
+    }
+
+    /**
+     * Fills a move list with the legal moves that neither capture nor promote,
+     * castling included, for the team whose turn it is
+     *
+     * @param moves the list to fill; it is cleared first
+     */
+    public void generateQuietMoves(MoveList moves) {
+        moves.clear();
+        searchGenerator().addAllMoves(moves, LegalMoveGenerator.QUIET_MOVES);
+    }
+
+    /**
+     * Checks an encoded move, flags included, against the legal moves of the
+     * piece on its start square; for moves remembered from other positions
+     *
+     * @return True if the move can be played now
+     */
+    public boolean isLegal(int move) {
+        int from = MoveList.from(move);
+        ChessPiece piece = board.pieceAt(from);
+        if (piece == null || piece.getTeamColor() != currentTurn) { return false; }
+        MoveList moves = SCRATCH_MOVES.get();
+        moves.clear();
+        moveGenerator(currentTurn).addMoves(from, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) { return true; }
         }
+        return false;
+    }
 
-        if (piece.getPieceType() ==  ChessPiece.PieceType.KING) {
-            int expectedRow = (piece.getTeamColor() == TeamColor.WHITE) ? 1 : 8;
-            if (startPosition.getRow() == expectedRow) {
-                allMoves.addAll(getCastlingMoves(startPosition, piece.getTeamColor()));
-            }
+//    the legal moves of the team to move, generated unless already known for this position;
+//    the key is checked since the board can be changed through getBoard
+    private LegalMoves legalMoves() {
+        long key = getZobristKey();
+        LegalMoves cached = legalMoves;
+        if (cached != null && cached.key() == key) { return cached; }
+        MoveList generated = SCRATCH_MOVES.get();
+        generated.clear();
+        moveGenerator(currentTurn).addAllMoves(generated);
+        int count = generated.size();
+
+//        counting sort: start[s + 1] counts, then ends, then shifts down to starts
+        int[] moves = new int[count];
+        int[] start = new int[65];
+        for (int i = 0; i < count; i++) {
+            start[MoveList.from(generated.get(i)) + 1]++;
+        }
+        for (int square = 0; square < 64; square++) {
+            start[square + 1] += start[square];
         }
+        for (int i = 0; i < count; i++) {
+            int move = generated.get(i);
+            moves[start[MoveList.from(move)]++] = move;
+        }
+        System.arraycopy(start, 0, start, 1, 64);
+        start[0] = 0;
+
+        cached = new LegalMoves(key, moves, start);
+        legalMoves = cached;
+        return cached;
+    }
 
-        if (piece.getPieceType() ==  ChessPiece.PieceType.PAWN) {
-            allMoves.addAll(getEnPassantMoves(startPosition, piece.getTeamColor()));
+    private static List<ChessMove> toChessMoves(LegalMoves legal, int from, int to) {
+        List<ChessMove> moves = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            moves.add(MoveList.toChessMove(legal.moves()[i]));
         }
+        return moves;
+    }
 
-        return allMoves;
+    private LegalMoveGenerator moveGenerator(TeamColor color) {
+        return GENERATORS.get().reset(board, color, canCastleKingSide(color), canCastleQueenSide(color),
+                enPassantSquare(color));
+    }
+
+//    the game's own generator, for the search methods; much faster per node than a thread local one
+    private LegalMoveGenerator searchGenerator() {
+        return searchGenerator.reset(board, currentTurn, canCastleKingSide(currentTurn),
+                canCastleQueenSide(currentTurn), enPassantSquare(currentTurn));
+    }
+
+//    square a pawn of this color would land on when capturing en passant, or -1
+    private int enPassantSquare(TeamColor color) {
+        if (lastMove == null) { return -1; }
+        ChessPiece lastMovedPiece = board.getPiece(lastMove.getEndPosition());
+        if (lastMovedPiece == null || lastMovedPiece.getTeamColor() == color ||
+                lastMovedPiece.getPieceType() != ChessPiece.PieceType.PAWN) { return -1; }
+
+        int startRow = lastMove.getStartPosition().getRow();
+        int endRow = lastMove.getEndPosition().getRow();
+        if (Math.abs(endRow - startRow) != 2) { return -1; }
+        return ChessBoard.squareIndex((startRow + endRow) / 2, lastMove.getEndPosition().getColumn());
     }
 
     /**
@@ -100,54 +474,198 @@ public class ChessGame {
         if (piece == null) { throw new InvalidMoveException("No Piece at Start"); }
         if (piece.getTeamColor() != getTeamTurn()) { throw new InvalidMoveException("Not your turn"); }
 
-        Collection<ChessMove> legalMoves = validMoves(move.getStartPosition());
-        if (legalMoves == null || !legalMoves.contains(move)) { throw new InvalidMoveException("Invalid Move"); }
-
-        updateCastlingFlags(move, piece);
+        int from = ChessBoard.squareIndex(move.getStartPosition());
+        int encoded = MoveList.encode(from, ChessBoard.squareIndex(move.getEndPosition()), move.getPromotionPiece(), 0);
+        LegalMoves legal = legalMoves();
+        for (int i = legal.start()[from]; i < legal.start()[from + 1]; i++) {
+            if ((legal.moves()[i] & 0x7FFF) == encoded) {
+                doMove(encoded);
+                return;
+            }
+        }
+        throw new InvalidMoveException("Invalid Move");
+    }
 
-        if (handleSpecialMove(move, piece)) { return; }
+    /**
+     * Plays a move without checking that it is legal, recording what is needed
+     * to take it back with {@link #undoMove()}. Meant for search and replay of
+     * moves that came from {@link #validMoves}; use makeMove for untrusted input.
+     *
+     * @param move a legal move for the team whose turn it is
+     */
+    public void doMove(ChessMove move) {
+        doMove(MoveList.encode(ChessBoard.squareIndex(move.getStartPosition()),
+                ChessBoard.squareIndex(move.getEndPosition()), move.getPromotionPiece(), 0));
+    }
 
-        normalMove(move, piece);
-        lastMove = move;
+    /**
+     * Plays an encoded move from {@link #generateMoves} without checking that
+     * it is legal; see {@link #doMove(ChessMove)}
+     *
+     * @param move a legal move for the team whose turn it is, encoded as in {@link MoveList}
+     */
+    public void doMove(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece.PieceType promotion = MoveList.promotion(move);
+        ChessPiece piece = board.pieceAt(from);
+        int captured = board.pieceIndexAt(to);
+        int kind = NORMAL_MOVE;
+        boolean sideways = (from & 7) != (to & 7);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs((from & 7) - (to & 7)) == 2) {
+            kind = CASTLE_MOVE;
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN && sideways && captured < 0) {
+            kind = EN_PASSANT_MOVE;
+            captured = ChessBoard.pieceIndex(opponent(piece.getTeamColor()), ChessPiece.PieceType.PAWN);
+        }
+        pushKeyHistory(getZobristKey());
+        pushUndo((move & 0x7FFF) | 1 << 15 | (long) (captured + 1) << 16 | (long) kind << 20
+                | (long) castlingFlags() << 22 | (long) encodeMove(lastMove) << 28
+                | (long) piece.getTeamColor().ordinal() << 44 | (long) Math.min(halfmoveClock, 0xFFFF) << 45);
+        halfmoveClock = piece.getPieceType() == ChessPiece.PieceType.PAWN || captured >= 0 ? 0 : halfmoveClock + 1;
+        if (piece.getTeamColor() == TeamColor.BLACK) { fullmoveNumber++; }
+
+        stateKey ^= castlingKey() ^ enPassantKey();
+        updateCastlingFlags(from, to, piece);
+
+        if (kind == CASTLE_MOVE) {
+            executeCastle(from, to);
+        } else if (kind == EN_PASSANT_MOVE) {
+            executeEnPassant(from, to);
+        } else {
+            board.setPiece(from, null);
+            board.setPiece(to, promotion == null ? piece : ChessPiece.of(piece.getTeamColor(), promotion));
+        }
+        lastMove = ChessMove.of(from, to, promotion);
+        invalidateCaches();
         switchTurn();
+        stateKey ^= castlingKey() ^ enPassantKey();
     }
 
-    private boolean handleSpecialMove(ChessMove move, ChessPiece piece) {
-        if (piece.getPieceType() == ChessPiece.PieceType.KING && isCastleMove(move)) {
-            executeCastle(move);
-            lastMove = move;
-            switchTurn();
-            return true;
+    /**
+     * Takes back the last move played with doMove or makeMove, restoring any
+     * captured piece, castling flags, en passant state and the turn
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (undoCount == 0) { throw new IllegalStateException("No move to undo"); }
+        long record = undoStack[--undoCount];
+        keyHistoryCount--;
+        int from = (int) record & 0x3F;
+        int to = (int) (record >>> 6) & 0x3F;
+        boolean promotion = ((record >>> 12) & 0x7) != 0;
+        int captured = (int) (record >>> 16 & 0xF) - 1;
+        int kind = (int) (record >>> 20) & 0x3;
+
+        currentTurn = ((record >>> 44) & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        halfmoveClock = (int) (record >>> 45) & 0xFFFF;
+        if (currentTurn == TeamColor.BLACK) { fullmoveNumber--; }
+        ChessPiece moved = promotion
+                ? ChessBoard.pieceForIndex(ChessBoard.pieceIndex(currentTurn, ChessPiece.PieceType.PAWN))
+                : board.pieceAt(to);
+        board.setPiece(from, moved);
+        board.setPiece(to, kind == NORMAL_MOVE && captured >= 0 ? ChessBoard.pieceForIndex(captured) : null);
+        if (kind == CASTLE_MOVE) {
+            boolean kingSide = to > from;
+            int rookFrom = kingSide ? to - 1 : to + 1;
+            int rookTo = kingSide ? to + 1 : to - 2;
+            board.setPiece(rookTo, board.pieceAt(rookFrom));
+            board.setPiece(rookFrom, null);
+        } else if (kind == EN_PASSANT_MOVE) {
+            board.setPiece((from & ~7) | (to & 7), ChessBoard.pieceForIndex(captured));
         }
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && isEnPassant(move)) {
-            executeEnPassant(move);
-            lastMove = move;
-            switchTurn();
-            return true;
+
+        restoreCastlingFlags((int) (record >>> 22) & 0x3F);
+        lastMove = decodeMove((int) (record >>> 28) & 0xFFFF);
+        invalidateCaches();
+        refreshStateKey();
+    }
+
+    private void pushKeyHistory(long key) {
+        if (keyHistoryCount == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistoryCount * 2);
         }
-        return false;
+        keyHistory[keyHistoryCount++] = key;
     }
 
-    private void normalMove(ChessMove move, ChessPiece piece) {
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(move.getEndPosition(), piece);
-        if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(),
-                    new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
+    private void pushUndo(long record) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
         }
+        undoStack[undoCount++] = record;
+    }
+
+//    from in bits 0-5, to in 6-11, promotion type + 1 in 12-14, bit 15 marks a present move
+    private static int encodeMove(ChessMove move) {
+        if (move == null) { return 0; }
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return ChessBoard.squareIndex(move.getStartPosition())
+                | ChessBoard.squareIndex(move.getEndPosition()) << 6
+                | (promotion == null ? 0 : promotion.ordinal() + 1) << 12
+                | 1 << 15;
+    }
+
+    private static ChessMove decodeMove(int encoded) {
+        if ((encoded & (1 << 15)) == 0) { return null; }
+        int promotion = (encoded >>> 12) & 0x7;
+        return ChessMove.of(encoded & 0x3F, (encoded >>> 6) & 0x3F,
+                promotion == 0 ? null : PIECE_TYPES[promotion - 1]);
+    }
+
+    int castlingFlags() {
+        return (whiteKingMoved ? 1 : 0) | (blackKingMoved ? 2 : 0)
+                | (whiteKingSideRookMoved ? 4 : 0) | (whiteQueenSideRookMoved ? 8 : 0)
+                | (blackKingSideRookMoved ? 16 : 0) | (blackQueenSideRookMoved ? 32 : 0);
+    }
+
+    private void restoreCastlingFlags(int flags) {
+        whiteKingMoved = (flags & 1) != 0;
+        blackKingMoved = (flags & 2) != 0;
+        whiteKingSideRookMoved = (flags & 4) != 0;
+        whiteQueenSideRookMoved = (flags & 8) != 0;
+        blackKingSideRookMoved = (flags & 16) != 0;
+        blackQueenSideRookMoved = (flags & 32) != 0;
     }
 
     private void switchTurn() {
-        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        currentTurn = opponent(currentTurn);
+        stateKey ^= Zobrist.BLACK_TO_MOVE;
     }
 
-    private boolean isCastleMove(ChessMove move) {
-        int colDiff = Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn());
-        return colDiff == 2;
+    /**
+     * Gets the Zobrist key of the whole game position: piece placement, side to
+     * move, castling rights and any en passant capture that is available
+     *
+     * @return 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        return board.getZobristKey() ^ stateKey;
     }
 
+    private void refreshStateKey() {
+        stateKey = (currentTurn == TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0) ^ castlingKey() ^ enPassantKey();
+    }
 
-    private void updateCastlingFlags(ChessMove move, ChessPiece piece) {
+    private long castlingKey() {
+        int rights = (canCastleKingSide(TeamColor.WHITE) ? 1 : 0) | (canCastleQueenSide(TeamColor.WHITE) ? 2 : 0)
+                | (canCastleKingSide(TeamColor.BLACK) ? 4 : 0) | (canCastleQueenSide(TeamColor.BLACK) ? 8 : 0);
+        return Zobrist.castlingKey(rights);
+    }
+
+//    the en passant file only counts when a pawn of the side to move is next to the pawn that can be taken
+    private long enPassantKey() {
+        int target = enPassantSquare(currentTurn);
+        if (target < 0) { return 0; }
+        int capturedSquare = target + (currentTurn == TeamColor.WHITE ? -8 : 8);
+        long pawns = board.pieces(currentTurn, ChessPiece.PieceType.PAWN);
+        int col = capturedSquare & 7;
+        boolean adjacent = (col > 0 && (pawns & (1L << (capturedSquare - 1))) != 0)
+                || (col < 7 && (pawns & (1L << (capturedSquare + 1))) != 0);
+        return adjacent ? Zobrist.EN_PASSANT_FILE[col] : 0;
+    }
+
+    private void updateCastlingFlags(int from, int to, ChessPiece piece) {
 //        Track King Moves
         if (piece.getPieceType() == ChessPiece.PieceType.KING) {
             if (piece.getTeamColor() == TeamColor.WHITE) {
@@ -157,26 +675,24 @@ public class ChessGame {
             }
         }
 //        Track Rook Moves
-        markRookMoved(piece, move.getStartPosition());
+        markRookMoved(piece, from);
 
         // Track if a rook gets captured at its starting position
-        ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-        if (capturedPiece != null && capturedPiece.getPieceType() == ChessPiece.PieceType.ROOK) {
-            markRookMoved(capturedPiece, move.getEndPosition());
+        ChessPiece capturedPiece = board.pieceAt(to);
+        if (capturedPiece != null) {
+            markRookMoved(capturedPiece, to);
         }
     }
 
-    private void markRookMoved(ChessPiece piece, ChessPosition pos) {
+    private void markRookMoved(ChessPiece piece, int square) {
         if (piece.getPieceType() != ChessPiece.PieceType.ROOK) { return; }
-        int row = pos.getRow();
-        int col = pos.getColumn();
 
         if (piece.getTeamColor() == TeamColor.WHITE) {
-            if (row == 1 && col == 1) { whiteQueenSideRookMoved = true; }
-            else if (row == 1 && col == 8) { whiteKingSideRookMoved = true; }
+            if (square == ChessBoard.squareIndex(1, 1)) { whiteQueenSideRookMoved = true; }
+            else if (square == ChessBoard.squareIndex(1, 8)) { whiteKingSideRookMoved = true; }
         } else {
-            if (row == 8 && col == 1) { blackQueenSideRookMoved = true; }
-            else if (row == 8 && col == 8) { blackKingSideRookMoved = true; }
+            if (square == ChessBoard.squareIndex(8, 1)) { blackQueenSideRookMoved = true; }
+            else if (square == ChessBoard.squareIndex(8, 8)) { blackKingSideRookMoved = true; }
         }
     }
 
@@ -202,136 +718,30 @@ public class ChessGame {
 
         int minCol = Math.min(startCol, endCol);
         int maxCol = Math.max(startCol, endCol);
+        if (maxCol - minCol < 2) { return true; }
 
-        for (int col = minCol +1; col < maxCol; col++) {
-            if (board.getPiece(new ChessPosition(row, col)) != null) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private Collection<ChessMove> getCastlingMoves(ChessPosition kingPos, TeamColor color) {
-        Collection<ChessMove> castlingMoves = new ArrayList<>();
-        int row = (color == TeamColor.WHITE) ? 1 : 8;
-
-        addCastlingMove(castlingMoves, kingPos, color, true, row);
-        addCastlingMove(castlingMoves, kingPos, color, false, row);
-
-        return castlingMoves;
+//        mask of the squares strictly between the two columns on this row
+        long between = ((1L << (maxCol - minCol - 1)) - 1) << ChessBoard.squareIndex(row, minCol + 1);
+        return (board.occupied() & between) == 0;
     }
 
-    private void addCastlingMove(Collection<ChessMove> moves, ChessPosition kingPos, TeamColor color, boolean kingSide, int row) {
-        if ((kingSide && !canCastleKingSide(color)) || (!kingSide && !canCastleQueenSide(color))) { return; }
-
-        ChessPosition rookPos = new ChessPosition(row, kingSide ? 8 : 1);
-        ChessPosition kingEndPos = new ChessPosition(row, kingSide ? 7 : 3);
-        ChessPosition kingPassPos = new ChessPosition(row, kingSide ? 6 : 4);
-
-        if (!isPathClear(kingPos, rookPos)) { return; }
-        if (isInCheck(color)) { return; }
-        if (!moveLeavesKingInCheck(new ChessMove(kingPos, kingEndPos, null), color)) { return; }
-        if (!moveLeavesKingInCheck(new ChessMove(kingPos, kingPassPos, null), color)) { return; }
-
-        moves.add(new ChessMove(kingPos, kingEndPos, null));
-    }
-
-    private void executeCastle(ChessMove move) {
-        ChessPiece king = board.getPiece(move.getStartPosition());
-        int row = move.getStartPosition().getRow();
-        int kingStartCol = move.getStartPosition().getColumn();
-        int kingEndCol = move.getEndPosition().getColumn();
-
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(move.getEndPosition(), king);
+    private void executeCastle(int from, int to) {
+        board.setPiece(to, board.pieceAt(from));
+        board.setPiece(from, null);
 
         // Determine which side and move the rook
-        ChessPosition rookStart;
-        ChessPosition rookEnd;
-        if (kingEndCol > kingStartCol) {
-            rookStart = new ChessPosition(row, 8);
-            rookEnd = new ChessPosition(row, 6);
-            ChessPiece rook = board.getPiece(rookStart);
-            board.addPiece(rookEnd, rook);
-            board.addPiece(rookStart, null);
-        } else {
-            rookStart = new ChessPosition(row, 1);
-            rookEnd = new ChessPosition(row, 4);
-            ChessPiece rook = board.getPiece(rookStart);
-            board.addPiece(rookEnd, rook);
-            board.addPiece(rookStart, null);
-        }
+        int rookStart = to > from ? to + 1 : to - 2;
+        int rookEnd = to > from ? to - 1 : to + 1;
+        board.setPiece(rookEnd, board.pieceAt(rookStart));
+        board.setPiece(rookStart, null);
     }
 
-    private Collection<ChessMove> getEnPassantMoves(ChessPosition pawnPos, TeamColor color) {
-        Collection<ChessMove> enPassantMoves = new ArrayList<>();
-        if (lastMove == null) { return enPassantMoves; }
-
-        ChessPiece lastMovedPiece = board.getPiece(lastMove.getEndPosition());
-        if (lastMovedPiece == null ||
-                lastMovedPiece.getPieceType() != ChessPiece.PieceType.PAWN) { return enPassantMoves; }
-
-        int startRow = lastMove.getStartPosition().getRow();
-        int endRow = lastMove.getEndPosition().getRow();
-        if (Math.abs(endRow - startRow) != 2) { return enPassantMoves; }
-
-        int pawnRow = pawnPos.getRow();
-        int pawnCol = pawnPos.getColumn();
-        int enemyPawnCol = lastMove.getEndPosition().getColumn();
-        if (pawnRow != endRow || Math.abs(pawnCol - enemyPawnCol) != 1) { return enPassantMoves; }
-
-        int captureRow = (color == TeamColor.WHITE) ? pawnRow + 1 : pawnRow - 1;
-        ChessPosition capturePos = new ChessPosition(captureRow, enemyPawnCol);
-        ChessMove enPassantMove = new ChessMove(pawnPos, capturePos, null);
-
-        if (!moveLeavesKingInCheckEnPassant(enPassantMove, color)) {
-            enPassantMoves.add(enPassantMove);
-        }
-
-        return enPassantMoves;
-    }
-
-
-    private boolean moveLeavesKingInCheckEnPassant(ChessMove move, TeamColor color) {
-        // For en passant, we need to remove the captured pawn from beside us, not at destination
-        ChessPiece movingPawn = board.getPiece(move.getStartPosition());
-        ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-        // The captured pawn is beside us, not at the destination
-        int capturedPawnRow = move.getStartPosition().getRow();
-        int capturedPawnCol = move.getEndPosition().getColumn();
-        ChessPosition capturedPawnPos = new ChessPosition(capturedPawnRow, capturedPawnCol);
-        ChessPiece capturedPawn = board.getPiece(capturedPawnPos);
-        // Simulate the en passant move
-        board.addPiece(move.getEndPosition(), movingPawn);
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(capturedPawnPos, null); // Remove the captured pawn
-        boolean inCheck = isInCheck(color);
-        // Undo the move
-        board.addPiece(move.getStartPosition(), movingPawn);
-        board.addPiece(move.getEndPosition(), capturedPiece);
-        board.addPiece(capturedPawnPos, capturedPawn);
-        return inCheck;
-    }
-
-    private void executeEnPassant(ChessMove move) {
-        ChessPiece pawn = board.getPiece(move.getStartPosition());
+    private void executeEnPassant(int from, int to) {
         // Move the pawn to the capture square
-        board.addPiece(move.getEndPosition(), pawn);
-        board.addPiece(move.getStartPosition(), null);
+        board.setPiece(to, board.pieceAt(from));
+        board.setPiece(from, null);
         // Remove the captured pawn (which is beside the starting position, not at destination)
-        int capturedPawnRow = move.getStartPosition().getRow();
-        int capturedPawnCol = move.getEndPosition().getColumn();
-        board.addPiece(new ChessPosition(capturedPawnRow, capturedPawnCol), null);
-    }
-
-    private boolean isEnPassant(ChessMove move) {
-        ChessPiece piece = board.getPiece(move.getStartPosition());
-        // Must be a pawn
-        if (piece.getPieceType() != ChessPiece.PieceType.PAWN) { return false; }
-        // Must be moving diagonally
-        if (move.getStartPosition().getColumn() == move.getEndPosition().getColumn()) { return false; }
-        // Destination square must be empty (that's what makes it en passant)
-        return board.getPiece(move.getEndPosition()) == null;
+        board.setPiece((from & ~7) | (to & 7), null);
     }
 
     /**
@@ -341,74 +751,137 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPos = findKing(teamColor);
-        if (kingPos == null) { return false; }
-        final boolean[] inCheck = {false};
-        forEachPosition(pos -> {
-            if (inCheck[0]) { return; }
-            ChessPiece piece = board.getPiece(pos);
-            if (piece != null && piece.getTeamColor() != teamColor) {
-                for (ChessMove move : piece.pieceMoves(board, pos)) {
-                    if (move.getEndPosition().equals(kingPos)) {
-                        inCheck[0] = true;
-                        return;
-                    }
-                }
-            }
-        });
-        return inCheck[0];
+        int kingSquare = board.kingSquare(teamColor);
+        if (kingSquare < 0) { return false; }
+        return board.isSquareAttacked(kingSquare, opponent(teamColor));
     }
 
-//    check if that move would leave the king in check
-    private boolean moveLeavesKingInCheck (ChessMove move, TeamColor teamColor) {
-        ChessPiece movingPiece = board.getPiece(move.getStartPosition());
-        ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
+    /**
+     * @return True if the team whose turn it is has a legal move; stops at the first one found
+     */
+    public boolean hasAnyMove() {
+        return moveGenerator(currentTurn).hasAnyMove();
+    }
 
-//        temp adding of pieces to see if would be in check
-        board.addPiece(move.getEndPosition(), movingPiece);
-        board.addPiece(move.getStartPosition(), null);
+    private static TeamColor opponent(TeamColor color) {
+        return color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
 
-        boolean inCheck = isInCheck(teamColor);
-//        removing temp pieces
-        board.addPiece(move.getStartPosition(), movingPiece);
-        board.addPiece(move.getEndPosition(), capturedPiece);
+    /**
+     * Gets the status of the team whose turn it is
+     *
+     * @return whether that team is in play, in check, checkmated or stalemated
+     */
+    public GameStatus getStatus() {
+        return getStatus(currentTurn);
+    }
 
-        return !inCheck;
+    /**
+     * Works out check, checkmate, stalemate and the drawn endings for a team in
+     * one pass. The team to move is checked against the legal moves kept for
+     * this ply; for the other team the search stops at the first legal move
+     * found. The answer is kept until the position changes, so asking for
+     * several statuses after a move costs one evaluation. Checkmate and
+     * stalemate take precedence over the other draws.
+     *
+     * @param teamColor which team to get the status of
+     * @return whether the team is in play, in check, checkmated, or the game is drawn
+     */
+    public GameStatus getStatus(TeamColor teamColor) {
+        long key = getZobristKey();
+        CachedStatus cached = cachedStatus;
+        if (cached != null && cached.team() == teamColor && cached.key() == key) {
+            return cached.status();
+        }
+        boolean hasMove;
+        boolean inCheck;
+        if (teamColor == currentTurn) {
+            hasMove = legalMoves().count() > 0;
+            inCheck = isInCheck(teamColor);
+        } else {
+            LegalMoveGenerator moves = moveGenerator(teamColor);
+            hasMove = moves.hasAnyMove();
+            inCheck = moves.inCheck();
+        }
+        GameStatus status;
+        if (!hasMove) {
+            status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else if (hasInsufficientMaterial()) {
+            status = GameStatus.INSUFFICIENT_MATERIAL;
+        } else if (isFiftyMoveDraw()) {
+            status = GameStatus.FIFTY_MOVE_RULE;
+        } else if (isThreefoldRepetition()) {
+            status = GameStatus.THREEFOLD_REPETITION;
+        } else {
+            status = inCheck ? GameStatus.CHECK : GameStatus.IN_PLAY;
+        }
+        cachedStatus = new CachedStatus(key, teamColor, status);
+        return status;
     }
 
-    private void forEachPosition(java.util.function.Consumer<ChessPosition> action) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                action.accept(new ChessPosition(row, col));
-            }
+    /**
+     * Determines if the current position has come up before, with the same team
+     * to move, since the last capture or pawn move
+     *
+     * @return True if the position is a repetition
+     */
+    public boolean isRepetition() {
+        return countRepetitions(1) >= 1;
+    }
+
+    /**
+     * @return True if the current position has come up twice before, making three times
+     */
+    public boolean isThreefoldRepetition() {
+        return countRepetitions(2) >= 2;
+    }
+
+//    positions before a capture or pawn move can't come back, so only the last
+//    halfmoveClock entries are scanned, and only those with the same team to move
+    private int countRepetitions(int enough) {
+        long key = getZobristKey();
+        int oldest = Math.max(0, keyHistoryCount - halfmoveClock);
+        int found = 0;
+        for (int i = keyHistoryCount - 2; i >= oldest && found < enough; i -= 2) {
+            if (keyHistory[i] == key) { found++; }
         }
+        return found;
     }
 
-//    check if the king has no valid moves
-    private boolean hasNoValidMoves(TeamColor teamColor) {
-        final boolean[] hasMoves = {false};
-        forEachPosition(pos -> {
-            if (hasMoves[0]) { return; }
-            ChessPiece piece = board.getPiece(pos);
-            if (piece != null && piece.getTeamColor() == teamColor) {
-                Collection<ChessMove> moves = validMoves(pos);
-                if (moves != null && !moves.isEmpty()) { hasMoves[0] = true; }
-            }
-        });
-        return !hasMoves[0];
+    /**
+     * @return True if a hundred half moves have passed without a capture or pawn move
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        final ChessPosition[] kingPos = {null};
-        forEachPosition(pos -> {
-            ChessPiece piece = board.getPiece(pos);
-            if (piece != null && piece.getTeamColor() == teamColor
-                    && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                kingPos[0] = pos;
-            }
-        });
-        return  kingPos[0];
+    /**
+     * Determines if neither team can ever checkmate: bare kings, a single
+     * bishop or knight, or any number of bishops that all stand on the same
+     * color of square
+     *
+     * @return True if the material left cannot force or even allow a mate
+     */
+    public boolean hasInsufficientMaterial() {
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : TeamColor.values()) {
+            heavy |= board.pieces(color, ChessPiece.PieceType.PAWN) | board.pieces(color, ChessPiece.PieceType.ROOK)
+                    | board.pieces(color, ChessPiece.PieceType.QUEEN);
+            knights |= board.pieces(color, ChessPiece.PieceType.KNIGHT);
+            bishops |= board.pieces(color, ChessPiece.PieceType.BISHOP);
+        }
+        if (heavy != 0) { return false; }
+        if (Long.bitCount(knights | bishops) <= 1) { return true; }
+        return knights == 0 && ((bishops & DARK_SQUARES) == 0 || (bishops & ~DARK_SQUARES) == 0);
+    }
+
+    private void invalidateCaches() {
+        cachedStatus = null;
+        legalMoves = null;
     }
+
     /**
      * Determines if the given team is in checkmate
      *
@@ -416,10 +889,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-        return hasNoValidMoves(teamColor);
+        return getStatus(teamColor) == GameStatus.CHECKMATE;
     }
     /**
      * Determines if the given team is in stalemate, which here is defined as having
@@ -429,10 +899,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        return hasNoValidMoves(teamColor);
+        return getStatus(teamColor) == GameStatus.STALEMATE;
     }
     /**
      * Sets this game's chessboard with a given board
@@ -441,6 +908,10 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        undoCount = 0;
+        keyHistoryCount = 0;
+        invalidateCaches();
+        refreshStateKey();
     }
 
     /**
@@ -460,6 +931,7 @@ public class ChessGame {
     }
     @Override
     public int hashCode() {
-        return Objects.hash(board, currentTurn);
+        long turnKey = currentTurn == TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0;
+        return Long.hashCode(board.getZobristKey() ^ turnKey);
     }
 }
\ No newline at end of file
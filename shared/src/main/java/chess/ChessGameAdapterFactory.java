@@ -0,0 +1,73 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson form of a {@link ChessGame}: its fields as Gson writes them anyway,
+ * plus the repetition history trimmed to the keys actually in use. The
+ * Zobrist state key and every search cache are left out and rebuilt on load.
+ * <p>
+ * Games stored while the history was an ordinary field hold the whole padded
+ * array next to a {@code keyHistoryCount}; the count is honoured when present.
+ */
+class ChessGameAdapterFactory implements TypeAdapterFactory {
+    private static final String KEY_HISTORY = "keyHistory";
+    private static final String KEY_HISTORY_COUNT = "keyHistoryCount";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ChessGame.class) { return null; }
+        TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+        return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+            @Override
+            public void write(JsonWriter out, ChessGame game) throws IOException {
+                if (game == null) {
+                    out.nullValue();
+                    return;
+                }
+                JsonObject json = fields.toJsonTree(game).getAsJsonObject();
+                long[] keys = game.keyHistory();
+                JsonArray history = new JsonArray(keys.length);
+                for (long key : keys) {
+                    history.add(key);
+                }
+                json.add(KEY_HISTORY, history);
+                elements.write(out, json);
+            }
+
+            @Override
+            public ChessGame read(JsonReader in) throws IOException {
+                JsonElement json = elements.read(in);
+                if (json == null || json.isJsonNull()) { return null; }
+                ChessGame game = fields.fromJsonTree(json);
+                game.restoreAfterLoad(readKeyHistory(json.getAsJsonObject()));
+                return game;
+            }
+        };
+    }
+
+    private static long[] readKeyHistory(JsonObject json) {
+        JsonElement history = json.get(KEY_HISTORY);
+        if (history == null || !history.isJsonArray()) { return new long[0]; }
+        JsonArray array = history.getAsJsonArray();
+        JsonElement count = json.get(KEY_HISTORY_COUNT);
+        int size = count == null ? array.size() : Math.min(count.getAsInt(), array.size());
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = array.get(i).getAsLong();
+        }
+        return keys;
+    }
+}
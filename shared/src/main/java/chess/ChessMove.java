@@ -12,6 +12,27 @@ public class ChessMove {
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
+//    Shared moves indexed by from * 64 + to, then by promotion type ordinal + 1 (0 for none).
+//    Only from/to pairs a pawn can promote on carry promotion entries.
+    private static final ChessMove[][] MOVES = new ChessMove[64 * 64][];
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                boolean promotable = Math.abs((from & 7) - (to & 7)) <= 1
+                        && ((from >>> 3 == 6 && to >>> 3 == 7) || (from >>> 3 == 1 && to >>> 3 == 0));
+                ChessMove[] variants = new ChessMove[promotable ? 7 : 1];
+                variants[0] = new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), null);
+                if (promotable) {
+                    for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                        variants[type.ordinal() + 1] =
+                                new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), type);
+                    }
+                }
+                MOVES[from * 64 + to] = variants;
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -19,6 +40,31 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared instance of a move when one exists, or a new move otherwise
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(ChessBoard.squareIndex(startPosition), ChessBoard.squareIndex(endPosition), promotionPiece);
+    }
+
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        ChessMove[] variants = MOVES[from * 64 + to];
+        int index = promotionPiece == null ? 0 : promotionPiece.ordinal() + 1;
+        if (index >= variants.length) {
+            return new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), promotionPiece);
+        }
+        return variants[index];
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -13,11 +13,42 @@ import java.util.Objects;
 public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    private static final PieceMovesCalculator KING_MOVES = new KingMovesCalculator();
+    private static final PieceMovesCalculator QUEEN_MOVES = new QueenMovesCalculator();
+    private static final PieceMovesCalculator BISHOP_MOVES = new BishopMovesCalculator();
+    private static final PieceMovesCalculator KNIGHT_MOVES = new KnightMovesCalculator();
+    private static final PieceMovesCalculator ROOK_MOVES = new RookMovesCalculator();
+    private static final PieceMovesCalculator PAWN_MOVES = new PawnMovesCalculator();
+//    indexed by PieceType ordinal
+    private static final PieceMovesCalculator[] CALCULATORS = {
+            KING_MOVES, QUEEN_MOVES, BISHOP_MOVES, KNIGHT_MOVES, ROOK_MOVES, PAWN_MOVES};
+
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance of a piece; pieces are immutable, so one per
+     * color and type is enough
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    static ChessPiece ofIndex(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -56,22 +87,22 @@ public class ChessPiece {
         PieceMovesCalculator calculator = null;
         switch (piece.getPieceType()) {
             case KING:
-                calculator = new KingMovesCalculator();
+                calculator = KING_MOVES;
                 break;
             case QUEEN:
-                calculator = new QueenMovesCalculator();
+                calculator = QUEEN_MOVES;
                 break;
             case BISHOP:
-                calculator = new BishopMovesCalculator();
+                calculator = BISHOP_MOVES;
                 break;
             case KNIGHT:
-                calculator = new KnightMovesCalculator();
+                calculator = KNIGHT_MOVES;
                 break;
             case PAWN:
-                calculator = new PawnMovesCalculator();
+                calculator = PAWN_MOVES;
                 break;
             case ROOK:
-                calculator = new RookMovesCalculator();
+                calculator = ROOK_MOVES;
                 break;
             default:
                 return List.of();
@@ -79,6 +110,14 @@ public class ChessPiece {
         return calculator.pieceMoves(board,myPosition);
     }
 
+    /**
+     * Appends the moves of the piece on a square to an encoded move list; the
+     * allocation-free counterpart of pieceMoves
+     */
+    static void addPieceMoves(ChessBoard board, int square, MoveList moves) {
+        CALCULATORS[board.pieceAt(square).getPieceType().ordinal()].addMoves(board, square, moves);
+    }
+
     @Override
     public String toString() {
         return pieceColor + " " + type;
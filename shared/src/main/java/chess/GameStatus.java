@@ -0,0 +1,29 @@
+package chess;
+
+/**
+ * The state of a game from one team's point of view
+ */
+public enum GameStatus {
+    /** The team is not in check and has a legal move */
+    IN_PLAY,
+    /** The team is in check and has a legal move */
+    CHECK,
+    /** The team is in check with no legal move */
+    CHECKMATE,
+    /** The team is not in check and has no legal move */
+    STALEMATE,
+    /** The same position, with the same team to move, has come up three times */
+    THREEFOLD_REPETITION,
+    /** Fifty moves by each team have passed without a capture or pawn move */
+    FIFTY_MOVE_RULE,
+    /** Neither team has the pieces left to deliver checkmate */
+    INSUFFICIENT_MATERIAL;
+
+    /**
+     * @return True if the game has ended in a draw
+     */
+    public boolean isDraw() {
+        return this == STALEMATE || this == THREEFOLD_REPETITION || this == FIFTY_MOVE_RULE
+                || this == INSUFFICIENT_MATERIAL;
+    }
+}
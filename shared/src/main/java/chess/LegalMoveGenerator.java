@@ -0,0 +1,239 @@
+package chess;
+
+/**
+ * Generates only legal moves for one team, without changing the board.
+ * <p>
+ * The pieces giving check and the pieces pinned against the king are worked
+ * out once, each time the generator is reset. Each pseudo-legal move from the piece
+ * calculators is then kept or dropped with a few mask tests.
+ */
+class LegalMoveGenerator {
+//    which moves addAllMoves produces; tactical moves are captures and promotions
+    static final int ALL_MOVES = 0;
+    static final int TACTICAL_MOVES = 1;
+    static final int QUIET_MOVES = 2;
+
+    private ChessBoard board;
+    private ChessGame.TeamColor color;
+    private ChessGame.TeamColor enemy;
+    private int kingSquare;
+    private boolean canCastleKingSide;
+    private boolean canCastleQueenSide;
+    private int enPassantSquare;
+
+    private long checkers;
+//    squares a non-king move must land on to deal with the current check
+    private long checkMask;
+    private long pinned;
+    private final int[] pinnedSquares = new int[8];
+    private final long[] pinRays = new long[8];
+    private int pinCount;
+    private final MoveList scratch = new MoveList();
+
+    /**
+     * Points the generator at a position, working out checks and pins. A
+     * generator can be reset any number of times, so one instance serves a game.
+     *
+     * @param enPassantSquare the square an en passant capture would land on, or -1
+     * @return this generator
+     */
+    LegalMoveGenerator reset(ChessBoard board, ChessGame.TeamColor color, boolean canCastleKingSide,
+                             boolean canCastleQueenSide, int enPassantSquare) {
+        this.board = board;
+        this.color = color;
+        this.enemy = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.kingSquare = board.kingSquare(color);
+        this.canCastleKingSide = canCastleKingSide;
+        this.canCastleQueenSide = canCastleQueenSide;
+        this.enPassantSquare = enPassantSquare;
+        this.pinned = 0;
+        this.pinCount = 0;
+
+        if (kingSquare < 0) {
+            checkers = 0;
+            checkMask = -1L;
+            return this;
+        }
+        checkers = board.attackersTo(kingSquare, enemy, board.occupied());
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | (isSlider(board.pieceIndexAt(checker)) ? AttackTables.between(kingSquare, checker) : 0);
+        } else {
+            checkMask = 0;
+        }
+        findPins();
+        return this;
+    }
+
+    /**
+     * Appends every legal move of the piece on a square to the list
+     */
+    void addMoves(int square, MoveList moves) {
+        addMoves(square, moves, ALL_MOVES);
+    }
+
+    private void addMoves(int square, MoveList moves, int kinds) {
+        ChessPiece piece = board.pieceAt(square);
+        if (piece == null || piece.getTeamColor() != color) { return; }
+        int start = moves.size();
+        ChessPiece.addPieceMoves(board, square, moves);
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            long occupancyWithoutKing = board.occupied() & ~(1L << square);
+            int kept = start;
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (wanted(move, kinds) && !board.isSquareAttacked(MoveList.to(move), enemy, occupancyWithoutKing)) {
+                    moves.set(kept++, move);
+                }
+            }
+            moves.truncate(kept);
+            if (kinds != TACTICAL_MOVES) { addCastlingMoves(square, moves); }
+            return;
+        }
+
+        long allowed = checkMask & pinRay(square);
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if ((allowed & (1L << MoveList.to(move))) != 0 && wanted(move, kinds)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+        if (allowed != 0 && kinds != QUIET_MOVES && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addEnPassantMove(square, moves);
+        }
+    }
+
+    /**
+     * Appends every legal move of the team to the list
+     */
+    void addAllMoves(MoveList moves) {
+        addAllMoves(moves, ALL_MOVES);
+    }
+
+    /**
+     * Appends the team's legal moves of one kind to the list
+     *
+     * @param kinds {@link #ALL_MOVES}, {@link #TACTICAL_MOVES} or {@link #QUIET_MOVES}
+     */
+    void addAllMoves(MoveList moves, int kinds) {
+        long own = board.occupancy(color);
+        while (own != 0) {
+            addMoves(Long.numberOfTrailingZeros(own), moves, kinds);
+            own &= own - 1;
+        }
+    }
+
+    private static boolean wanted(int move, int kinds) {
+        if (kinds == ALL_MOVES) { return true; }
+        boolean tactical = MoveList.hasFlag(move, MoveList.CAPTURE) || MoveList.isPromotion(move);
+        return tactical == (kinds == TACTICAL_MOVES);
+    }
+
+    /**
+     * @return True if the team's king is attacked
+     */
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * @return True if the team has at least one legal move; stops at the first one found
+     */
+    boolean hasAnyMove() {
+        scratch.clear();
+        if (kingSquare >= 0) {
+            addMoves(kingSquare, scratch);
+            if (!scratch.isEmpty()) { return true; }
+        }
+        long own = board.occupancy(color) & ~(kingSquare >= 0 ? 1L << kingSquare : 0);
+        while (own != 0) {
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            addMoves(square, scratch);
+            if (!scratch.isEmpty()) { return true; }
+        }
+        return false;
+    }
+
+    private void findPins() {
+        long own = board.occupancy(color);
+        long occupied = board.occupied();
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+//        enemy sliders that would see the king on an empty board
+        long snipers = (AttackTables.rookAttacks(kingSquare, 0) & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(kingSquare, 0) & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long line = AttackTables.between(kingSquare, sniper);
+            long blockers = line & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+                pinnedSquares[pinCount] = Long.numberOfTrailingZeros(blockers);
+                pinRays[pinCount++] = line | (1L << sniper);
+            }
+        }
+    }
+
+    private long pinRay(int square) {
+        if ((pinned & (1L << square)) == 0) { return -1L; }
+        for (int i = 0; i < pinCount; i++) {
+            if (pinnedSquares[i] == square) { return pinRays[i]; }
+        }
+        return -1L;
+    }
+
+    private void addCastlingMoves(int square, MoveList moves) {
+        int homeRow = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+        if (square != ChessBoard.squareIndex(homeRow, 5) || checkers != 0) { return; }
+        if (canCastleKingSide) {
+            addCastlingMove(homeRow, 8, 6, 7, moves);
+        }
+        if (canCastleQueenSide) {
+            addCastlingMove(homeRow, 1, 4, 3, moves);
+        }
+    }
+
+    private void addCastlingMove(int row, int rookCol, int passCol, int endCol, MoveList moves) {
+        int rookSquare = ChessBoard.squareIndex(row, rookCol);
+        if ((board.pieces(color, ChessPiece.PieceType.ROOK) & (1L << rookSquare)) == 0) { return; }
+
+        int kingSquare = ChessBoard.squareIndex(row, 5);
+        if ((board.occupied() & AttackTables.between(kingSquare, rookSquare)) != 0) { return; }
+
+        long occupancyWithoutKing = board.occupied() & ~(1L << kingSquare);
+        if (board.isSquareAttacked(ChessBoard.squareIndex(row, passCol), enemy, occupancyWithoutKing)) { return; }
+        if (board.isSquareAttacked(ChessBoard.squareIndex(row, endCol), enemy, occupancyWithoutKing)) { return; }
+
+        moves.add(MoveList.encode(kingSquare, ChessBoard.squareIndex(row, endCol), null, MoveList.CASTLE));
+    }
+
+    private void addEnPassantMove(int square, MoveList moves) {
+        if (enPassantSquare < 0) { return; }
+        int direction = color == ChessGame.TeamColor.WHITE ? 8 : -8;
+        int capturedSquare = enPassantSquare - direction;
+        if ((capturedSquare >>> 3) != (square >>> 3) || Math.abs((capturedSquare & 7) - (square & 7)) != 1) { return; }
+        if ((board.pieces(enemy, ChessPiece.PieceType.PAWN) & (1L << capturedSquare)) == 0) { return; }
+        if ((board.occupied() & (1L << enPassantSquare)) != 0) { return; }
+
+//        the captured pawn leaves a square the destination does not cover, which can
+//        expose the king along the rank; test the resulting occupancy directly
+        if (kingSquare >= 0) {
+            long occupancyAfter = (board.occupied() & ~(1L << square) & ~(1L << capturedSquare))
+                    | (1L << enPassantSquare);
+            if (board.isSquareAttacked(kingSquare, enemy, occupancyAfter)) { return; }
+        }
+        moves.add(MoveList.encode(square, enPassantSquare, null, MoveList.CAPTURE | MoveList.EN_PASSANT));
+    }
+
+    private static boolean isSlider(int pieceIndex) {
+        int type = pieceIndex % 6;
+        return type == ChessPiece.PieceType.QUEEN.ordinal() || type == ChessPiece.PieceType.ROOK.ordinal()
+                || type == ChessPiece.PieceType.BISHOP.ordinal();
+    }
+}
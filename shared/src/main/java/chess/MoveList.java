@@ -0,0 +1,140 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A reusable buffer of moves packed into ints, for generating moves without
+ * allocating a {@link ChessMove} per move.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square, numbered
+ * (row - 1) * 8 + (col - 1). Bits 12-14 hold the promotion type's ordinal + 1,
+ * or 0 for none, and the bits above that are the flags below. Clear the list
+ * and fill it again instead of making a new one.
+ */
+public final class MoveList {
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLE = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 8)];
+    }
+
+    /**
+     * Packs a move into an int
+     *
+     * @param promotion the promotion type, or null
+     * @param flags     any of {@link #CAPTURE}, {@link #EN_PASSANT}, {@link #CASTLE}, {@link #DOUBLE_PUSH}
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the promotion type, or null if the move does not promote
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 0x7;
+        return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 0x7000) != 0;
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return the shared ChessMove for an encoded move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+//    adds a move from one square to each target, flagging the ones that land on an enemy
+    void addTargets(int from, long targets, long enemies) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            add(from | to << 6 | ((enemies & (1L << to)) != 0 ? CAPTURE : 0));
+        }
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+//    drops every move from index on; used to filter a generated range in place
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Swaps two entries, for move ordering
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    /**
+     * @return the moves as ChessMoves, appended to the given collection
+     */
+    public <T extends Collection<ChessMove>> T addTo(T target) {
+        for (int i = 0; i < size; i++) {
+            target.add(toChessMove(moves[i]));
+        }
+        return target;
+    }
+
+    public List<ChessMove> toChessMoves() {
+        return addTo(new ArrayList<>(size));
+    }
+}
@@ -0,0 +1,163 @@
+package chess;
+
+/**
+ * An immutable board packed into four longs, a 4-bit piece code per square,
+ * for keeping the position after every ply of a game.
+ * <p>
+ * Each long holds two ranks. Applying a move builds a new board that copies
+ * the longs of the untouched ranks by value and rewrites only the one or two
+ * that changed, so a version costs about 48 bytes and a 200-ply history under
+ * 10 KB, with no deep copy of a {@link ChessBoard}. Since every field is
+ * final, a board can be handed to another thread without copying or locking.
+ */
+public final class PackedBoard {
+    public static final PackedBoard EMPTY = new PackedBoard(0, 0, 0, 0);
+
+//    code per square: 0 for empty, otherwise the piece index + 1
+    private final long ranks12;
+    private final long ranks34;
+    private final long ranks56;
+    private final long ranks78;
+
+    private PackedBoard(long ranks12, long ranks34, long ranks56, long ranks78) {
+        this.ranks12 = ranks12;
+        this.ranks34 = ranks34;
+        this.ranks56 = ranks56;
+        this.ranks78 = ranks78;
+    }
+
+    /**
+     * Takes a snapshot of a mutable board
+     */
+    public static PackedBoard of(ChessBoard board) {
+        long[] packed = new long[4];
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                long code = ChessBoard.pieceIndex(color, type) + 1;
+                for (long pieces = board.pieces(color, type); pieces != 0; pieces &= pieces - 1) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    packed[square >>> 4] |= code << ((square & 15) * 4);
+                }
+            }
+        }
+        return new PackedBoard(packed[0], packed[1], packed[2], packed[3]);
+    }
+
+    /**
+     * @return the board at the start of a game
+     */
+    public static PackedBoard startPosition() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        return of(board);
+    }
+
+    private long word(int index) {
+        return switch (index) {
+            case 0 -> ranks12;
+            case 1 -> ranks34;
+            case 2 -> ranks56;
+            default -> ranks78;
+        };
+    }
+
+    private int code(int square) {
+        return (int) (word(square >>> 4) >>> ((square & 15) * 4)) & 0xF;
+    }
+
+    /**
+     * Gets the piece on a square given by index, (row - 1) * 8 + (col - 1)
+     *
+     * @return the piece, or null if the square is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        int code = code(square);
+        return code == 0 ? null : ChessBoard.pieceForIndex(code - 1);
+    }
+
+    public ChessPiece getPiece(ChessPosition position) {
+        return pieceAt(ChessBoard.squareIndex(position));
+    }
+
+    /**
+     * @param piece the piece to put on the square, or null to empty it
+     * @return a board that differs from this one only on that square
+     */
+    public PackedBoard with(int square, ChessPiece piece) {
+        long code = piece == null ? 0 : ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+        return with(square, code);
+    }
+
+    private PackedBoard with(int square, long code) {
+        int shift = (square & 15) * 4;
+        int index = square >>> 4;
+        long word = word(index) & ~(0xFL << shift) | code << shift;
+        return new PackedBoard(index == 0 ? word : ranks12, index == 1 ? word : ranks34,
+                index == 2 ? word : ranks56, index == 3 ? word : ranks78);
+    }
+
+    /**
+     * Plays a move encoded as in {@link MoveList}; see {@link #apply(ChessMove)}
+     */
+    public PackedBoard apply(int move) {
+        return apply(MoveList.from(move), MoveList.to(move), MoveList.promotion(move));
+    }
+
+    /**
+     * Plays a move, moving the rook as well when a king moves two squares and
+     * taking the pawn passed by when a pawn moves diagonally to an empty
+     * square. Legality isn't checked.
+     *
+     * @return the board after the move; this board is unchanged
+     */
+    public PackedBoard apply(ChessMove move) {
+        return apply(ChessBoard.squareIndex(move.getStartPosition()), ChessBoard.squareIndex(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    private PackedBoard apply(int from, int to, ChessPiece.PieceType promotion) {
+        int code = code(from);
+        if (code == 0) { throw new IllegalArgumentException("No piece on square " + from); }
+        int type = (code - 1) % 6;
+        int color = (code - 1) / 6;
+        long landing = promotion == null ? code : color * 6 + promotion.ordinal() + 1;
+        PackedBoard board = with(from, 0L).with(to, landing);
+
+        if (type == ChessPiece.PieceType.KING.ordinal() && Math.abs((to & 7) - (from & 7)) == 2) {
+            int rookFrom = (to & 7) == 6 ? to + 1 : to - 2;
+            int rookTo = (to & 7) == 6 ? to - 1 : to + 1;
+            board = board.with(rookTo, (long) code(rookFrom)).with(rookFrom, 0L);
+        } else if (type == ChessPiece.PieceType.PAWN.ordinal() && (from & 7) != (to & 7) && code(to) == 0) {
+            board = board.with((from & ~7) | (to & 7), 0L);
+        }
+        return board;
+    }
+
+    /**
+     * @return a new mutable board with the same pieces
+     */
+    public ChessBoard toChessBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = code(square);
+            if (code != 0) { board.setPiece(square, ChessBoard.pieceForIndex(code - 1)); }
+        }
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedBoard that && ranks12 == that.ranks12 && ranks34 == that.ranks34
+                && ranks56 == that.ranks56 && ranks78 == that.ranks78;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(ranks12 * 31 ^ ranks34 * 961 ^ ranks56 * 29791 ^ ranks78);
+    }
+
+    @Override
+    public String toString() {
+        return toChessBoard().toFen();
+    }
+}
@@ -12,5 +12,18 @@ public interface PieceMovesCalculator {
      * @param position the position of the piece
      * @return a collection of legal moves
      */
-    Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position);
-}
\ No newline at end of file
+    default Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
+        MoveList moves = new MoveList(32);
+        addMoves(board, ChessBoard.squareIndex(position), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the moves of the piece on a square to a move list, without
+     * allocating anything per move
+     * @param board the chess board
+     * @param square the square index of the piece
+     * @param moves the list to append the encoded moves to
+     */
+    void addMoves(ChessBoard board, int square, MoveList moves);
+}
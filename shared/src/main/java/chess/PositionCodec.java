@@ -0,0 +1,88 @@
+package chess;
+
+/**
+ * Packs a position into at most 29 bytes, for storing and sending game
+ * snapshots without Gson's square-by-square JSON.
+ * <p>
+ * The layout is the occupied squares as a 64-bit bitmap, then one 4-bit piece
+ * code per occupied square in square order, two to a byte with the lower
+ * square in the low half, then five bytes of state: the side to move with the
+ * king and rook moved flags, the en passant file (0 for none), the halfmove
+ * clock, and the fullmove number in two bytes. Both clocks are capped at what
+ * their bytes hold. The move history used for undo and repetition isn't kept,
+ * so a decoded game starts a fresh history like {@link ChessGame#setBoard}.
+ */
+public final class PositionCodec {
+    public static final int MAX_LENGTH = 8 + 16 + 5;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * @return the packed position, at most {@link #MAX_LENGTH} bytes long
+     */
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.occupied();
+        int pieces = Long.bitCount(occupied);
+        if (pieces > 32) { throw new IllegalArgumentException("Too many pieces to encode: " + pieces); }
+        byte[] bytes = new byte[8 + (pieces + 1) / 2 + 5];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (occupied >>> (i * 8));
+        }
+
+        int nibble = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            int code = board.pieceIndexAt(Long.numberOfTrailingZeros(remaining));
+            bytes[8 + nibble / 2] |= (byte) (code << (nibble & 1) * 4);
+            nibble++;
+        }
+
+        int state = 8 + (pieces + 1) / 2;
+        bytes[state] = (byte) (game.getTeamTurn().ordinal() | game.castlingFlags() << 1);
+        int enPassant = game.getEnPassantSquare();
+        bytes[state + 1] = (byte) (enPassant < 0 ? 0 : (enPassant & 7) + 1);
+        bytes[state + 2] = (byte) Math.min(game.getHalfmoveClock(), 0xFF);
+        int fullmove = Math.min(game.getFullmoveNumber(), 0xFFFF);
+        bytes[state + 3] = (byte) fullmove;
+        bytes[state + 4] = (byte) (fullmove >>> 8);
+        return bytes;
+    }
+
+    /**
+     * @param bytes a position written by {@link #encode}
+     * @return a new game in that position
+     * @throws IllegalArgumentException if the bytes aren't a valid encoding
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length < 13) { throw badEncoding("too short"); }
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {
+            occupied |= (bytes[i] & 0xFFL) << (i * 8);
+        }
+        int pieces = Long.bitCount(occupied);
+        int state = 8 + (pieces + 1) / 2;
+        if (pieces > 32 || bytes.length != state + 5) { throw badEncoding("wrong length"); }
+
+        ChessBoard board = new ChessBoard();
+        int nibble = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            int code = bytes[8 + nibble / 2] >>> (nibble & 1) * 4 & 0xF;
+            if (code >= 12) { throw badEncoding("bad piece code " + code); }
+            board.setPiece(Long.numberOfTrailingZeros(remaining), ChessBoard.pieceForIndex(code));
+            nibble++;
+        }
+
+        int flags = bytes[state] & 0xFF;
+        int enPassantFile = bytes[state + 1] & 0xFF;
+        if (flags > 0x7F || enPassantFile > 8) { throw badEncoding("bad state"); }
+        ChessGame.TeamColor turn = (flags & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int fullmove = (bytes[state + 3] & 0xFF) | (bytes[state + 4] & 0xFF) << 8;
+        return ChessGame.restore(board, turn, flags >>> 1, enPassantFile, bytes[state + 2] & 0xFF,
+                Math.max(fullmove, 1));
+    }
+
+    private static IllegalArgumentException badEncoding(String reason) {
+        return new IllegalArgumentException("Bad position encoding: " + reason);
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist position hashing.
+ * <p>
+ * The keys come from a fixed seed so that a position hashes the same way in
+ * every JVM, which lets stored keys be compared across runs and servers.
+ */
+final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+//    white king side, white queen side, black king side, black queen side
+    static final long[] CASTLING = new long[4];
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x240C4E55L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param rights castling rights as bits, in the order of {@link #CASTLING}
+     */
+    static long castlingKey(int rights) {
+        long key = 0;
+        for (int i = 0; i < CASTLING.length; i++) {
+            if ((rights & (1 << i)) != 0) { key ^= CASTLING[i]; }
+        }
+        return key;
+    }
+}
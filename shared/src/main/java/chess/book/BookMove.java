@@ -0,0 +1,12 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * A move listed in an opening book for a position
+ *
+ * @param move   the move, checked to be legal in the position looked up
+ * @param weight how often the book suggests it relative to the other moves, 0 for never
+ */
+public record BookMove(ChessMove move, int weight) {
+}
@@ -0,0 +1,163 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book in Polyglot's .bin format, read straight from a memory
+ * mapped file.
+ * <p>
+ * The file is a run of 16-byte big-endian entries sorted by position key:
+ * the key, the move, a weight and four bytes of learning data that are
+ * ignored. A lookup hashes the position with {@link PolyglotKeys} and binary
+ * searches the mapping, so nothing is copied onto the heap and the book may be
+ * shared between threads.
+ */
+public final class OpeningBook {
+    private static final int ENTRY_SIZE = 16;
+//    Polyglot promotion codes 1-4 are knight, bishop, rook, queen
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final PolyglotKeys keys;
+
+    private OpeningBook(ByteBuffer entries, PolyglotKeys keys) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_SIZE;
+        this.keys = keys;
+    }
+
+    /**
+     * Maps a book keyed with the standard Polyglot table
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return open(file, PolyglotKeys.standard());
+    }
+
+    /**
+     * Maps a book file. The mapping outlives the file channel, which is closed
+     * before this returns.
+     *
+     * @param keys the key table the book was written with
+     * @throws IllegalArgumentException if the file is not a whole number of entries or is over 2 GB
+     */
+    public static OpeningBook open(Path file, PolyglotKeys keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_SIZE != 0) {
+                throw new IllegalArgumentException("Not a Polyglot book: " + file);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Book too large to map: " + file);
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), keys);
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the book moves for a position. Entries that are not legal in the
+     * position, which can only come from a key collision, are left out.
+     *
+     * @return the moves in book order, empty if the position is not in the book
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = keys.hash(game);
+        int first = firstEntry(key);
+        if (first == size || entries.getLong(first * ENTRY_SIZE) != key) { return List.of(); }
+
+        MoveList legal = new MoveList();
+        game.generateMoves(legal);
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = first; i < size && entries.getLong(i * ENTRY_SIZE) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            int move = toMove(game, entries.getShort(offset + 8) & 0xFFFF);
+            for (int j = 0; j < legal.size(); j++) {
+                if ((legal.get(j) & 0x7FFF) == move) {
+                    moves.add(new BookMove(MoveList.toChessMove(move), entries.getShort(offset + 10) & 0xFFFF));
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return the book move with the highest weight, or null if the position is not in the book
+     */
+    public ChessMove bestMove(ChessGame game) {
+        BookMove best = null;
+        for (BookMove move : moves(game)) {
+            if (best == null || move.weight() > best.weight()) { best = move; }
+        }
+        return best == null ? null : best.move();
+    }
+
+    /**
+     * Picks a book move at random, each with a chance in proportion to its weight
+     *
+     * @return the move, or null if the position is not in the book or every weight is 0
+     */
+    public ChessMove randomMove(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) { return null; }
+        int pick = random.nextInt(total);
+        for (BookMove move : moves) {
+            pick -= move.weight();
+            if (pick < 0) { return move.move(); }
+        }
+        throw new IllegalStateException("Weights changed during pick");
+    }
+
+//    lower bound: the first entry whose key is not below the key, comparing keys as unsigned
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+//    Polyglot packs to in bits 0-5 and from in bits 6-11, both numbered like ours, and the
+//    promotion in 12-14. Castling is written as the king taking its own rook.
+    private static int toMove(ChessGame game, int polyglot) {
+        int to = polyglot & 0x3F;
+        int from = (polyglot >>> 6) & 0x3F;
+        ChessPiece.PieceType promotion = PROMOTIONS[Math.min((polyglot >>> 12) & 0x7, 4)];
+        ChessPiece piece = game.getBoard().pieceAt(from);
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && (from & 7) == 4
+                && (to >>> 3) == (from >>> 3) && ((to & 7) == 0 || (to & 7) == 7)) {
+            to = (to & 7) == 7 ? from + 2 : from - 2;
+        }
+        return MoveList.encode(from, to, promotion, 0);
+    }
+}
@@ -0,0 +1,138 @@
+package chess.book;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Position hashing in the layout Polyglot opening books are keyed by.
+ * <p>
+ * A table has 781 random keys: 768 for the pieces, at
+ * 64 * kind + 8 * (row - 1) + (col - 1) where kind runs black pawn, white
+ * pawn, black knight, white knight, and so on through the bishops, rooks,
+ * queens and kings; then white king side, white queen side, black king side
+ * and black queen side castling; then one per en passant file; and last one
+ * for white to move. Books written by other programs only match when the
+ * table is Polyglot's published Random64 array, which {@link #standard()}
+ * loads from chess/book/polyglot-random64.txt on the classpath or from the
+ * file named by the {@value #TABLE_PROPERTY} system property.
+ */
+public final class PolyglotKeys {
+    public static final int KEY_COUNT = 781;
+    public static final String TABLE_PROPERTY = "chess.polyglot.keys";
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+//    Polyglot's piece order, indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    private static final int[] POLYGLOT_TYPE = {5, 4, 2, 1, 3, 0};
+    private static final String RESOURCE = "polyglot-random64.txt";
+
+    private static volatile PolyglotKeys standard;
+
+    private final long[] random;
+
+    /**
+     * @param random the 781 keys, in Polyglot's order
+     */
+    public PolyglotKeys(long[] random) {
+        if (random.length != KEY_COUNT) {
+            throw new IllegalArgumentException("Expected " + KEY_COUNT + " keys, got " + random.length);
+        }
+        this.random = random.clone();
+    }
+
+    /**
+     * Reads a key table written as 781 hexadecimal numbers, separated by
+     * whitespace or commas, with or without a 0x prefix
+     */
+    public static PolyglotKeys load(InputStream in) throws IOException {
+        String text = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        long[] keys = new long[KEY_COUNT];
+        int count = 0;
+        for (String token : text.split("[\\s,]+")) {
+            if (token.isEmpty()) { continue; }
+            if (count == KEY_COUNT) { throw new IllegalArgumentException("More than " + KEY_COUNT + " keys"); }
+            String hex = token.startsWith("0x") || token.startsWith("0X") ? token.substring(2) : token;
+            keys[count++] = Long.parseUnsignedLong(hex, 16);
+        }
+        if (count != KEY_COUNT) {
+            throw new IllegalArgumentException("Expected " + KEY_COUNT + " keys, got " + count);
+        }
+        return new PolyglotKeys(keys);
+    }
+
+    /**
+     * @return the published Random64 table, loaded once
+     * @throws IllegalStateException if the table is neither on the classpath nor
+     * in the file named by {@value #TABLE_PROPERTY}, or can't be read
+     */
+    public static PolyglotKeys standard() {
+        PolyglotKeys keys = standard;
+        if (keys == null) {
+//            two threads may both load it; either copy will do
+            keys = loadStandard();
+            standard = keys;
+        }
+        return keys;
+    }
+
+    private static PolyglotKeys loadStandard() {
+        String file = System.getProperty(TABLE_PROPERTY);
+        try (InputStream in = file != null ? Files.newInputStream(Path.of(file))
+                : PolyglotKeys.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Polyglot key table not found: add chess/book/" + RESOURCE
+                        + " to the classpath or set " + TABLE_PROPERTY + " to its path");
+            }
+            return load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Could not read Polyglot key table", e);
+        }
+    }
+
+    /**
+     * @return the Polyglot key of the game's position
+     */
+    public long hash(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int colorBit = color == ChessGame.TeamColor.WHITE ? 1 : 0;
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                int base = 64 * (2 * POLYGLOT_TYPE[type.ordinal()] + colorBit);
+                long pieces = board.pieces(color, type);
+                while (pieces != 0) {
+                    key ^= random[base + Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+
+        if (game.canCastleKingSide(ChessGame.TeamColor.WHITE)) { key ^= random[CASTLING_OFFSET]; }
+        if (game.canCastleQueenSide(ChessGame.TeamColor.WHITE)) { key ^= random[CASTLING_OFFSET + 1]; }
+        if (game.canCastleKingSide(ChessGame.TeamColor.BLACK)) { key ^= random[CASTLING_OFFSET + 2]; }
+        if (game.canCastleQueenSide(ChessGame.TeamColor.BLACK)) { key ^= random[CASTLING_OFFSET + 3]; }
+
+//        Polyglot only counts the en passant file when a pawn of the side to move could take
+        int target = game.getEnPassantSquare();
+        if (target >= 0) {
+            boolean white = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+            int capturedSquare = target + (white ? -8 : 8);
+            long pawns = board.pieces(game.getTeamTurn(), ChessPiece.PieceType.PAWN);
+            int col = capturedSquare & 7;
+            if ((col > 0 && (pawns & (1L << (capturedSquare - 1))) != 0)
+                    || (col < 7 && (pawns & (1L << (capturedSquare + 1))) != 0)) {
+                key ^= random[EN_PASSANT_OFFSET + col];
+            }
+        }
+
+        if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) { key ^= random[TURN_OFFSET]; }
+        return key;
+    }
+}
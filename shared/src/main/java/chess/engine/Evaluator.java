@@ -0,0 +1,30 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Static evaluation of a position, in centipawns from the point of view of the
+ * team to move.
+ * <p>
+ * The board keeps its material and piece-square scores up to date as pieces
+ * move, so evaluating is a blend of two numbers: the middlegame score weighs
+ * more while pieces remain, the endgame score as they come off. Exchange
+ * evaluation and move ordering price pieces with {@link ChessBoard#materialValue},
+ * the same material tapered the same way.
+ */
+public final class Evaluator {
+    private Evaluator() {
+    }
+
+    /**
+     * @return the material and piece-square balance for the team to move, tapered by game phase
+     */
+    public static int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int phase = Math.min(board.phase(), ChessBoard.TOTAL_PHASE);
+        int score = (board.midgameScore() * phase + board.endgameScore() * (ChessBoard.TOTAL_PHASE - phase))
+                / ChessBoard.TOTAL_PHASE;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
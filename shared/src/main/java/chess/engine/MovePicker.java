@@ -0,0 +1,211 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+
+/**
+ * Hands out the moves of one node a stage at a time, best guesses first, so a
+ * node that cuts off early never generates or sorts the moves it didn't need.
+ * <p>
+ * The stages are the hash move, captures and promotions that don't lose
+ * material by {@link StaticExchange} ordered most valuable victim first, the
+ * two killer moves, quiet moves ordered by the history table, and last the
+ * losing captures. A picker is reused for every node at its ply.
+ */
+final class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_TACTICAL = 1;
+    private static final int GOOD_TACTICAL = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int GENERATE_QUIET = 5;
+    private static final int QUIET = 6;
+    private static final int BAD_TACTICAL = 7;
+    private static final int DONE = 8;
+
+//    tactical scores at or above this are good captures; below it they lose material
+    private static final int GOOD_SCORE = 1_000_000;
+
+    private final StaticExchange exchange;
+    private final MoveList tactical = new MoveList();
+    private final MoveList quiet = new MoveList();
+    private int[] tacticalScores = new int[32];
+    private int[] quietScores = new int[64];
+
+    private ChessGame game;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int[][] history;
+    private int noiseSeed;
+    private boolean tacticalOnly;
+    private int stage;
+    private int index;
+    private int quietIndex;
+
+    MovePicker() {
+        this(new StaticExchange());
+    }
+
+    /**
+     * @param exchange the search's exchange evaluator, shared by the pickers of every ply
+     */
+    MovePicker(StaticExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Starts picking the moves of a full-width node
+     *
+     * @param hashMove     the move to try first, or 0; checked for legality before use
+     * @param firstKiller  a quiet move that cut off at this ply elsewhere in the tree, or 0
+     * @param secondKiller an older one, or 0
+     * @param history      cutoff scores of the side to move's quiet moves, indexed [from][to]
+     * @param noiseSeed    0 normally; otherwise shuffles equal quiet moves differently per seed
+     */
+    MovePicker reset(ChessGame game, int hashMove, int firstKiller, int secondKiller, int[][] history,
+                     int noiseSeed) {
+        this.game = game;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.history = history;
+        this.noiseSeed = noiseSeed;
+        this.tacticalOnly = false;
+        this.stage = HASH;
+        return this;
+    }
+
+    /**
+     * Starts picking for quiescence: only captures and promotions that don't lose material
+     */
+    MovePicker resetTactical(ChessGame game) {
+        reset(game, 0, 0, 0, null, 0);
+        this.tacticalOnly = true;
+        this.stage = GENERATE_TACTICAL;
+        return this;
+    }
+
+    /**
+     * @return the next move to search, or 0 when there are none left
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GENERATE_TACTICAL;
+                    if (hashMove != 0 && game.isLegal(hashMove)) { return hashMove; }
+                }
+                case GENERATE_TACTICAL -> {
+                    game.generateTacticalMoves(tactical);
+                    tacticalScores = scoreTactical(tactical, tacticalScores);
+                    index = 0;
+                    stage = GOOD_TACTICAL;
+                }
+                case GOOD_TACTICAL -> {
+                    while (index < tactical.size()) {
+                        if (peekBest(tactical, tacticalScores, index) < GOOD_SCORE) { break; }
+                        int move = tactical.get(index++);
+                        if (move != hashMove) { return move; }
+                    }
+                    stage = tacticalOnly ? DONE : FIRST_KILLER;
+                }
+                case FIRST_KILLER -> {
+                    stage = SECOND_KILLER;
+                    if (isUsableKiller(firstKiller)) { return firstKiller; }
+                }
+                case SECOND_KILLER -> {
+                    stage = GENERATE_QUIET;
+                    if (secondKiller != firstKiller && isUsableKiller(secondKiller)) { return secondKiller; }
+                }
+                case GENERATE_QUIET -> {
+                    game.generateQuietMoves(quiet);
+                    quietScores = scoreQuiet(quiet, quietScores);
+                    stage = QUIET;
+                    quietIndex = 0;
+                }
+                case QUIET -> {
+                    while (quietIndex < quiet.size()) {
+                        peekBest(quiet, quietScores, quietIndex);
+                        int move = quiet.get(quietIndex++);
+                        if (move != hashMove && move != firstKiller && move != secondKiller) { return move; }
+                    }
+                    stage = BAD_TACTICAL;
+                }
+                case BAD_TACTICAL -> {
+                    while (index < tactical.size()) {
+                        int move = tactical.get(index++);
+                        if (move != hashMove) { return move; }
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private boolean isUsableKiller(int killer) {
+        return killer != 0 && killer != hashMove && game.isLegal(killer);
+    }
+
+//    good captures score GOOD_SCORE and up by victim then attacker; losing ones score below it
+    private int[] scoreTactical(MoveList moves, int[] scores) {
+        if (scores.length < moves.size()) { scores = new int[moves.size() * 2]; }
+        ChessBoard board = game.getBoard();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int victim = victimValue(board, move);
+            int attacker = board.materialValue(board.pieceAt(MoveList.from(move)).getPieceType());
+            ChessPiece.PieceType promotion = MoveList.promotion(move);
+            int score = victim * 10 - attacker / 10 + (promotion == null ? 0 : board.materialValue(promotion) * 10);
+//            taking something worth at least the attacker can't lose material; only test the rest.
+//            underpromotions are almost never best, so they wait with the losing captures
+            boolean good = (promotion == null || promotion == ChessPiece.PieceType.QUEEN)
+                    && (victim >= attacker || exchange.evaluate(board, move) >= 0);
+            scores[i] = good ? GOOD_SCORE + score : score;
+        }
+        return scores;
+    }
+
+    private static int victimValue(ChessBoard board, int move) {
+        if (!MoveList.hasFlag(move, MoveList.CAPTURE)) { return 0; }
+        if (MoveList.hasFlag(move, MoveList.EN_PASSANT)) { return board.materialValue(ChessPiece.PieceType.PAWN); }
+        return board.materialValue(board.pieceAt(MoveList.to(move)).getPieceType());
+    }
+
+    private int[] scoreQuiet(MoveList moves, int[] scores) {
+        if (scores.length < moves.size()) { scores = new int[moves.size() * 2]; }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = history[MoveList.from(move)][MoveList.to(move)];
+            if (noiseSeed != 0) { score += quietNoise(move); }
+            scores[i] = score;
+        }
+        return scores;
+    }
+
+//    small fixed shuffle of quiet moves, different for each seed, so helpers explore different trees
+    private int quietNoise(int move) {
+        int h = (move & 0xFFF) * 0x9E3779B1 + noiseSeed * 0x85EBCA6B;
+        return (h ^ (h >>> 15)) & 63;
+    }
+
+//    selection sort step: swaps the best remaining move into slot i and returns its score
+    private static int peekBest(MoveList moves, int[] scores, int i) {
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) { best = j; }
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+        return scores[i];
+    }
+}
@@ -0,0 +1,130 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy SMP: several threads search the same root position at once, sharing
+ * one {@link TranspositionTable}, so each thread's results speed up the others.
+ * <p>
+ * The calling thread runs the main search and decides when to stop. Helper
+ * threads run on a fixed pool; odd helpers search one ply deeper and every
+ * helper shuffles its quiet moves differently, so they don't all walk the same
+ * tree. When the main search ends, every helper is signalled, and the result
+ * of the deepest finished iteration is kept, unless a shallower one proved a
+ * mate through the shared table.
+ */
+public class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    /**
+     * @param threads          total search threads, including the calling thread
+     * @param tableMegabytes   size of the shared transposition table
+     */
+    public ParallelSearch(int threads, int tableMegabytes) {
+        this.table = new TranspositionTable(tableMegabytes);
+        this.searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new Search(table);
+        }
+        this.helpers = searches.length > 1 ? Executors.newFixedThreadPool(searches.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Searches a position on every thread
+     *
+     * @param position     the position to search
+     * @param maxDepth     the deepest iteration the main thread runs
+     * @param budgetMillis hard limit on wall-clock time
+     * @return the best result, with each thread's own result for reporting
+     */
+    public ParallelSearchResult search(ChessGame position, int maxDepth, long budgetMillis) {
+        table.newSearch();
+        AtomicBoolean stopSignal = new AtomicBoolean();
+        List<Future<SearchResult>> futures = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            int helperIndex = i;
+            futures.add(helpers.submit(() -> helper.search(position, maxDepth, budgetMillis, helperIndex, stopSignal)));
+        }
+
+        List<SearchResult> results = new ArrayList<>(searches.length);
+        try {
+            results.add(searches[0].search(position, maxDepth, budgetMillis, 0, stopSignal));
+        } finally {
+            stopSignal.set(true);
+        }
+        for (Future<SearchResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+
+        SearchResult best = results.get(0);
+        for (SearchResult result : results) {
+            if (result.bestMove() != null && isBetter(result, best)) {
+                best = result;
+            }
+        }
+        return new ParallelSearchResult(best, results);
+    }
+
+//    a forced win is proven whatever depth found it; otherwise the deeper search knows more
+    private static boolean isBetter(SearchResult candidate, SearchResult best) {
+        boolean candidateWins = candidate.isMate() && candidate.score() > 0;
+        boolean bestWins = best.isMate() && best.score() > 0;
+        if (candidateWins || bestWins) { return candidate.score() > best.score(); }
+        return candidate.depth() > best.depth();
+    }
+
+    /**
+     * @param tablebase endings every thread scores exactly instead of searching, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Searches until the time budget runs out or a forced mate is found
+     */
+    public ParallelSearchResult search(ChessGame position, long budgetMillis) {
+        return search(position, Search.MAX_PLY - 1, budgetMillis);
+    }
+
+    public int threads() {
+        return searches.length;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Shuts down the helper threads
+     */
+    @Override
+    public void close() {
+        if (helpers != null) { helpers.shutdownNow(); }
+    }
+}
@@ -0,0 +1,34 @@
+package chess.engine;
+
+import java.util.List;
+
+/**
+ * The outcome of a parallel search
+ *
+ * @param best      the result kept: the deepest finished iteration, preferring the main thread
+ * @param perThread each thread's own result, main thread first, for nodes per second per thread
+ */
+public record ParallelSearchResult(SearchResult best, List<SearchResult> perThread) {
+
+    /**
+     * @return positions visited by all threads together
+     */
+    public long totalNodes() {
+        long nodes = 0;
+        for (SearchResult result : perThread) {
+            nodes += result.nodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return combined nodes per second of all threads
+     */
+    public long nodesPerSecond() {
+        long total = 0;
+        for (SearchResult result : perThread) {
+            total += result.nodesPerSecond();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,365 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Negamax alpha-beta search over a {@link ChessGame}.
+ * <p>
+ * Deepens one ply at a time, searching each new depth with an aspiration
+ * window around the last score and ordering the last principal variation
+ * first. Each node takes its moves from a {@link MovePicker}: the hash move,
+ * winning captures, killer moves, then quiet moves by history. The wall-clock
+ * budget is checked every 1024 nodes once an iteration has finished; when it
+ * runs out the unfinished iteration is thrown away and the last finished one
+ * is returned. The first iteration (depth 1 on the main thread) always runs to
+ * the end, so there is a move to return, and may overrun a tiny budget.
+ * Leaves are resolved with a quiescence search over captures that don't lose
+ * material.
+ * Repetitions, the fifty-move rule and dead material score as draws, and
+ * endings in an attached {@link Tablebase} take their exact score.
+ * Results are kept in a {@link TranspositionTable}, which cuts off repeated
+ * positions and supplies the first move to try.
+ * <p>
+ * A Search keeps its buffers between calls and is not thread-safe; use one
+ * per thread. The game passed in is copied, never changed.
+ */
+public class Search {
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 128;
+    private static final int INFINITY = 32000;
+    private static final int ASPIRATION_WINDOW = 40;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final StaticExchange exchange = new StaticExchange();
+    private final MoveList rootMoves = new MoveList();
+//    two quiet moves per ply that last caused a cutoff there
+    private final int[][] killers = new int[MAX_PLY][2];
+//    depth-weighted cutoff counts of quiet moves, indexed [color][from][to]
+    private final int[][][] history = new int[2][64][64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] previousPv = new int[0];
+
+    private final TranspositionTable table;
+    private Tablebase tablebase;
+    private ChessGame game;
+    private long nodes;
+    private long deadline;
+    private boolean canAbort;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+    private AtomicBoolean stopSignal;
+//    0 for a search of its own; helpers in a parallel search vary their depths and move order by index
+    private int helperIndex;
+
+    /**
+     * Creates a search with its own 16 MB transposition table
+     */
+    public Search() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * @param table the transposition table to use; searches may share one
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker(exchange);
+        }
+    }
+
+    /**
+     * Searches until the time budget runs out or a forced mate is found
+     */
+    public SearchResult search(ChessGame position, long budgetMillis) {
+        return search(position, MAX_PLY - 1, budgetMillis);
+    }
+
+    /**
+     * Searches a position with iterative deepening
+     *
+     * @param position     the position to search, with the team to move as given by getTeamTurn
+     * @param maxDepth     the deepest iteration to run
+     * @param budgetMillis hard limit on wall-clock time; at least depth 1 always finishes
+     * @return the best move found by the deepest finished iteration
+     */
+    public SearchResult search(ChessGame position, int maxDepth, long budgetMillis) {
+        table.newSearch();
+        return search(position, maxDepth, budgetMillis, 0, null);
+    }
+
+    /**
+     * Runs one thread of a parallel search. The caller starts the table's new
+     * generation, and ends the search for every thread by setting the signal.
+     */
+    SearchResult search(ChessGame position, int maxDepth, long budgetMillis, int helperIndex,
+                        AtomicBoolean stopSignal) {
+        long start = System.nanoTime();
+        this.helperIndex = helperIndex;
+        this.stopSignal = stopSignal;
+        game = new ChessGame(position);
+        deadline = start + budgetMillis * 1_000_000L;
+        nodes = 0;
+        canAbort = false;
+        aborted = false;
+        stopRequested = false;
+        previousPv = new int[0];
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+
+        game.generateMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis(start), List.of());
+        }
+
+        int score = 0;
+        int completedDepth = 0;
+//        odd helpers run one ply ahead of the main thread, so the threads spread over two depths
+        int firstDepth = helperIndex % 2 == 1 ? 2 : 1;
+        for (int depth = firstDepth; depth <= Math.max(firstDepth, Math.min(maxDepth, MAX_PLY - 1)); depth++) {
+            int window = ASPIRATION_WINDOW;
+            int alpha = depth >= ASPIRATION_MIN_DEPTH ? Math.max(score - window, -INFINITY) : -INFINITY;
+            int beta = depth >= ASPIRATION_MIN_DEPTH ? Math.min(score + window, INFINITY) : INFINITY;
+            int iterationScore;
+            while (true) {
+                iterationScore = negamax(depth, alpha, beta, 0, true);
+                if (aborted) { break; }
+                if (iterationScore <= alpha && alpha > -INFINITY) {
+                    window *= 2;
+                    alpha = Math.max(iterationScore - window, -INFINITY);
+                } else if (iterationScore >= beta && beta < INFINITY) {
+                    window *= 2;
+                    beta = Math.min(iterationScore + window, INFINITY);
+                } else {
+                    break;
+                }
+            }
+            if (aborted) { break; }
+
+            score = iterationScore;
+            completedDepth = depth;
+            previousPv = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, previousPv, 0, pvLength[0]);
+            canAbort = true;
+            if (Math.abs(score) >= MATE - MAX_PLY) { break; }
+//            the next iteration would take several times as long as this one; don't start what can't finish
+            if (helperIndex == 0 && System.nanoTime() - start > (deadline - start) / 2) { break; }
+        }
+
+        List<ChessMove> line = principalVariation(completedDepth);
+        return new SearchResult(line.get(0), score, completedDepth, nodes, elapsedMillis(start), line);
+    }
+
+//    the stored PV stops where a table cutoff ended it; continue it from the table's best moves
+    private List<ChessMove> principalVariation(int depth) {
+        List<ChessMove> line = new ArrayList<>(depth);
+        ChessGame walk = new ChessGame(game);
+        MoveList moves = new MoveList();
+        for (int move : previousPv) {
+            line.add(MoveList.toChessMove(move));
+            walk.doMove(move);
+        }
+        while (line.size() < depth) {
+            long entry = table.probe(walk.getZobristKey());
+            if (entry == 0) { break; }
+            int move = TranspositionTable.move(entry);
+            walk.generateMoves(moves);
+            boolean legal = false;
+            for (int i = 0; i < moves.size() && !legal; i++) {
+                legal = moves.get(i) == move;
+            }
+            if (!legal) { break; }
+            line.add(MoveList.toChessMove(move));
+            walk.doMove(move);
+        }
+        return line;
+    }
+
+    /**
+     * @param tablebase endings to score exactly instead of searching, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * @return the transposition table this search reads and writes
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can; safe to call from another thread
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, boolean onPv) {
+        pvLength[ply] = ply;
+        if (depth <= 0) { return quiesce(alpha, beta, ply); }
+        if ((++nodes & 1023) == 0) { checkTime(); }
+        if (aborted) { return 0; }
+        if (ply >= MAX_PLY - 1) { return Evaluator.evaluate(game); }
+//        one repetition is enough inside the tree: whatever the side to move had, it can play again
+        if (ply > 0 && (game.isRepetition() || game.isFiftyMoveDraw() || game.hasInsufficientMaterial())) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null) {
+            TablebaseResult result = tablebase.probe(game);
+            if (result != null) { return tablebaseScore(result, ply); }
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int stored = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && stored >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        int pvMove = onPv && ply < previousPv.length ? previousPv[ply] : 0;
+        int color = game.getTeamTurn().ordinal();
+        MovePicker picker = pickers[ply].reset(game, pvMove != 0 ? pvMove : hashMove,
+                killers[ply][0], killers[ply][1], history[color], helperIndex);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = hashMove;
+        int played = 0;
+        for (int move = picker.next(); move != 0; move = picker.next()) {
+            played++;
+            game.doMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1, move == pvMove);
+            game.undoMove();
+            if (aborted) { return 0; }
+
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                pv[ply][ply] = move;
+                System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                pvLength[ply] = pvLength[ply + 1];
+                if (alpha >= beta) {
+                    if (!MoveList.hasFlag(move, MoveList.CAPTURE) && !MoveList.isPromotion(move)) {
+                        rememberQuietCutoff(move, depth, ply, color);
+                    }
+                    break;
+                }
+            }
+        }
+        if (played == 0) {
+            return game.isInCheck(game.getTeamTurn()) ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private static int tablebaseScore(TablebaseResult result, int ply) {
+        return switch (result.outcome()) {
+            case WIN -> MATE - ply - result.pliesToMate();
+            case LOSS -> -MATE + ply + result.pliesToMate();
+            case DRAW -> 0;
+        };
+    }
+
+//    mate scores count plies from the root; the table holds them counted from the stored position
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) { return score + ply; }
+        if (score <= -MATE + MAX_PLY) { return score - ply; }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) { return score - ply; }
+        if (score <= -MATE + MAX_PLY) { return score + ply; }
+        return score;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0) { checkTime(); }
+        if (aborted) { return 0; }
+        int standPat = Evaluator.evaluate(game);
+        if (standPat >= beta || ply >= MAX_PLY - 1) { return standPat; }
+        if (standPat > alpha) { alpha = standPat; }
+
+        MovePicker picker = pickers[ply].resetTactical(game);
+        int best = standPat;
+        for (int move = picker.next(); move != 0; move = picker.next()) {
+            game.doMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.undoMove();
+            if (aborted) { return 0; }
+
+            if (score > best) { best = score; }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) { break; }
+            }
+        }
+        return best;
+    }
+
+    private void checkTime() {
+        boolean signalled = stopRequested || (stopSignal != null && stopSignal.get());
+        if (canAbort && (signalled || System.nanoTime() - deadline > 0)) {
+            aborted = true;
+        }
+    }
+
+    private void rememberQuietCutoff(int move, int depth, int ply, int color) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[color][MoveList.from(move)];
+        fromHistory[MoveList.to(move)] += depth * depth;
+//        halve everything now and then, so old cutoffs fade and the counts can't overflow
+        if (fromHistory[MoveList.to(move)] > HISTORY_LIMIT) {
+            for (int[] row : history[color]) {
+                for (int to = 0; to < 64; to++) {
+                    row[to] /= 2;
+                }
+            }
+        }
+    }
+}
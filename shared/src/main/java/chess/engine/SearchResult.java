@@ -0,0 +1,34 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of a search: the move to play, its score in centipawns for the
+ * team to move, and the line the search expects to follow.
+ *
+ * @param bestMove           the move to play, or null if the team has no legal move
+ * @param score              centipawns for the team to move; mates score near {@link Search#MATE}
+ * @param depth              the deepest iteration that finished
+ * @param nodes              positions visited, including quiescence
+ * @param elapsedMillis      wall-clock time spent
+ * @param principalVariation the expected line, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return nodes searched per second of wall-clock time
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(elapsedMillis, 1);
+    }
+}
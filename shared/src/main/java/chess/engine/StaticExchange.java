@@ -0,0 +1,95 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both
+ * sides have traded off every piece bearing on the target square, each
+ * recapturing with its least valuable attacker and stopping when carrying on
+ * would lose more.
+ * <p>
+ * Sliders hidden behind a piece that leaves the square join in as they are
+ * uncovered. Pins and checks are ignored, except that a king never
+ * recaptures onto a defended square.
+ * <p>
+ * An instance keeps its swap list between calls, so it belongs to one search
+ * thread; each {@link Search} holds its own.
+ */
+public final class StaticExchange {
+//    recapture order, least valuable first
+    private static final ChessPiece.PieceType[] ATTACKER_ORDER = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING};
+    private static final int KING_VALUE = 20_000;
+
+//    gain[d]: material won by the side making capture d if the exchange stopped there
+    private final int[] gain = new int[32];
+
+    /**
+     * @param move an encoded move, as in {@link MoveList}, for the piece on its start square
+     * @return the expected material gain of the move for the side making it, in centipawns
+     */
+    public int evaluate(ChessBoard board, int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece mover = board.pieceAt(from);
+        ChessGame.TeamColor side = mover.getTeamColor();
+        long occupied = board.occupied() & ~(1L << from);
+
+        if (MoveList.hasFlag(move, MoveList.EN_PASSANT)) {
+            gain[0] = board.materialValue(ChessPiece.PieceType.PAWN);
+            occupied &= ~(1L << (to + (side == ChessGame.TeamColor.WHITE ? -8 : 8)));
+        } else {
+            ChessPiece victim = board.pieceAt(to);
+            gain[0] = victim == null ? 0 : board.materialValue(victim.getPieceType());
+        }
+        int attackerValue = value(board, mover.getPieceType());
+        if (MoveList.isPromotion(move)) {
+            ChessPiece.PieceType promotion = MoveList.promotion(move);
+            gain[0] += board.materialValue(promotion) - board.materialValue(ChessPiece.PieceType.PAWN);
+            attackerValue = board.materialValue(promotion);
+        }
+
+        int depth = 0;
+        while (depth < gain.length - 1) {
+            depth++;
+            side = opponent(side);
+//            what this side has won if the piece now on the square is taken and nothing more happens
+            gain[depth] = attackerValue - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) { break; }
+
+            long attackers = board.attackersTo(to, side, occupied);
+            if (attackers == 0) { break; }
+            int square = -1;
+            for (ChessPiece.PieceType type : ATTACKER_ORDER) {
+                long candidates = attackers & board.pieces(side, type);
+                if (candidates != 0) {
+                    square = Long.numberOfTrailingZeros(candidates);
+                    attackerValue = value(board, type);
+                    break;
+                }
+            }
+            if (attackerValue == KING_VALUE
+                    && board.attackersTo(to, opponent(side), occupied & ~(1L << square)) != 0) {
+                break;
+            }
+            occupied &= ~(1L << square);
+        }
+//        the last entry assumed a recapture that never came
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    private static int value(ChessBoard board, ChessPiece.PieceType type) {
+        return type == ChessPiece.PieceType.KING ? KING_VALUE : board.materialValue(type);
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,152 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search results keyed by Zobrist key, held in one
+ * preallocated long[] so that it costs nothing to the garbage collector.
+ * <p>
+ * Each bucket has two entries: the first keeps the deepest result seen this
+ * search, the second always takes the newest. An entry is a data word (move,
+ * score, depth, bound and search generation) stored next to the key XORed with
+ * that word. Threads read and write without locks; an entry torn by two
+ * concurrent writers fails the XOR check and reads as a miss.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+//    data word: bits 0-18 move, 19-34 score + 32768, 35-42 depth, 43-44 bound, 45-52 generation
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 43;
+    private static final int GENERATION_SHIFT = 45;
+
+    private final long[] slots;
+    private final long bucketMask;
+    private int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param megabytes approximate size; rounded down to a power of two buckets of 32 bytes
+     */
+    public TranspositionTable(int megabytes) {
+        long buckets = Math.max(1L, (long) megabytes * 1024 * 1024 / 32);
+        int size = Integer.highestOneBit((int) Math.min(buckets, 1 << 26));
+        this.slots = new long[size * 4];
+        this.bucketMask = size - 1;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from older searches are replaced first
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+    }
+
+    /**
+     * @return the data word stored for the key, or 0 if there is none
+     */
+    public long probe(long key) {
+        probes.increment();
+        int index = index(key);
+        for (int slot = index; slot < index + 4; slot += 2) {
+            long data = slots[slot + 1];
+            if (data != 0 && (slots[slot] ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        if (slots[index + 1] != 0 || slots[index + 3] != 0) { collisions.increment(); }
+        return 0;
+    }
+
+    /**
+     * Stores a search result
+     *
+     * @param move  the best move found, encoded as in {@link chess.MoveList}, or 0
+     * @param score the score, with mate scores already relative to this position
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long data = (move & 0x7FFFFL)
+                | (long) (score + 32768 & 0xFFFF) << SCORE_SHIFT
+                | (long) Math.min(Math.max(depth, 0), 0xFF) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        int index = index(key);
+        long deepest = slots[index + 1];
+        boolean sameKey = deepest != 0 && (slots[index] ^ deepest) == key;
+        int slot = index + 2;
+        if (deepest == 0 || sameKey || generation(deepest) != generation || depth >= depth(deepest)) {
+            slot = index;
+        }
+        slots[slot] = key ^ data;
+        slots[slot + 1] = data;
+    }
+
+    private int index(long key) {
+        return (int) (key & bucketMask) << 2;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFFF);
+    }
+
+    public static int score(long data) {
+        return (int) (data >>> SCORE_SHIFT & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT & 0xFF);
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public long capacity() {
+        return slots.length / 2;
+    }
+
+    /**
+     * @return the fraction of probes that found their position
+     */
+    public double hitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * @return the fraction of probes that missed while their bucket held other positions
+     */
+    public double collisionRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) collisions.sum() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("probes=%d hits=%.1f%% collisions=%.1f%%",
+                probes.sum(), hitRate() * 100, collisionRate() * 100);
+    }
+}
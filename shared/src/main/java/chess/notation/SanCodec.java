@@ -0,0 +1,248 @@
+package chess.notation;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and reads moves in standard algebraic notation, such as Nbd7, exd6,
+ * e8=Q+ and O-O-O#.
+ * <p>
+ * Both directions work from one generation of the position's legal moves:
+ * writing looks through it for other pieces of the same kind that reach the
+ * same square to decide how much of the origin to show, and reading matches
+ * the notation against it. Writing plays the move on a copy of the game to add
+ * + or #, so the game itself is never touched. A codec reuses its move list,
+ * so each thread needs its own.
+ */
+public final class SanCodec {
+    private static final String PIECE_LETTERS = "KQBNR";
+    private static final ChessPiece.PieceType[] PIECE_TYPES = {ChessPiece.PieceType.KING,
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.ROOK};
+
+    private final MoveList moves = new MoveList();
+
+    /**
+     * @param move a legal move for the team to move
+     * @throws IllegalArgumentException if the move isn't legal in the position
+     */
+    public String format(ChessGame game, ChessMove move) {
+        game.generateMoves(moves);
+        int encoded = find(move);
+        if (encoded == 0) { throw new IllegalArgumentException("Illegal move: " + move); }
+        StringBuilder san = format(game.getBoard(), encoded, new StringBuilder(8));
+        ChessGame after = new ChessGame(game);
+        after.doMove(encoded);
+        return appendCheck(after, san).toString();
+    }
+
+    /**
+     * Writes a line of moves played one after another from a position, as for
+     * a PGN export. The game itself isn't changed.
+     *
+     * @throws IllegalArgumentException if a move isn't legal where it is played
+     */
+    public List<String> formatLine(ChessGame game, List<ChessMove> line) {
+        ChessGame position = new ChessGame(game);
+        List<String> sans = new ArrayList<>(line.size());
+        StringBuilder san = new StringBuilder(8);
+        for (ChessMove move : line) {
+            position.generateMoves(moves);
+            int encoded = find(move);
+            if (encoded == 0) { throw new IllegalArgumentException("Illegal move: " + move); }
+            san.setLength(0);
+            format(position.getBoard(), encoded, san);
+            position.doMove(encoded);
+            sans.add(appendCheck(position, san).toString());
+        }
+        return sans;
+    }
+
+    /**
+     * @return the move the notation describes
+     * @throws IllegalArgumentException if it describes no legal move, or more than one;
+     * an x must be present exactly when the move captures
+     */
+    public ChessMove parse(ChessGame game, String san) {
+        int move = resolve(game, san);
+        if (move == 0) { throw new IllegalArgumentException("Illegal or ambiguous move: " + san); }
+        return MoveList.toChessMove(move);
+    }
+
+    /**
+     * Like {@link #parse}, without allocating
+     *
+     * @return the move encoded as in {@link MoveList}, or 0 if there isn't exactly one match
+     */
+    public int resolve(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        game.generateMoves(moves);
+
+        if (san.startsWith("O-O") || san.startsWith("0-0")) {
+            if (end != 3 && end != 5) { return 0; }
+            int targetColumn = end == 3 ? 6 : 2;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (MoveList.hasFlag(move, MoveList.CASTLE) && (MoveList.to(move) & 7) == targetColumn) { return move; }
+            }
+            return 0;
+        }
+
+        int start = 0;
+        ChessPiece.PieceType piece = ChessPiece.PieceType.PAWN;
+        int letter = end > 0 ? PIECE_LETTERS.indexOf(san.charAt(0)) : -1;
+        if (letter >= 0) {
+            piece = PIECE_TYPES[letter];
+            start = 1;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (piece == ChessPiece.PieceType.PAWN && end >= 2) {
+            int promoted = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+            if (promoted > 0) {
+                promotion = PIECE_TYPES[promoted];
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+        }
+        if (end - start < 2) { return 0; }
+        int to = square(san.charAt(end - 2), san.charAt(end - 1));
+        if (to < 0) { return 0; }
+
+        int fromColumn = -1;
+        int fromRow = -1;
+        boolean capture = false;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromColumn = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '1';
+            } else if (c == 'x' || c == ':') {
+                capture = true;
+            } else {
+                return 0;
+            }
+        }
+//        a pawn only names its file when it captures, so "d5" can't stand for "exd5"
+        if (piece == ChessPiece.PieceType.PAWN && capture != (fromColumn >= 0)) { return 0; }
+
+        ChessBoard board = game.getBoard();
+        int found = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = MoveList.from(move);
+            if (MoveList.to(move) != to || MoveList.promotion(move) != promotion
+                    || MoveList.hasFlag(move, MoveList.CAPTURE) != capture
+                    || MoveList.hasFlag(move, MoveList.CASTLE)
+                    || board.pieceAt(from).getPieceType() != piece
+                    || (fromColumn >= 0 && (from & 7) != fromColumn)
+                    || (fromRow >= 0 && from >>> 3 != fromRow)) {
+                continue;
+            }
+            if (found != 0) { return 0; }
+            found = move;
+        }
+        return found;
+    }
+
+//    the legal move in the generated list that matches, or 0
+    private int find(ChessMove move) {
+        int from = square(move.getStartPosition().getRow(), move.getStartPosition().getColumn());
+        int to = square(move.getEndPosition().getRow(), move.getEndPosition().getColumn());
+        for (int i = 0; i < moves.size(); i++) {
+            int candidate = moves.get(i);
+            if (MoveList.from(candidate) == from && MoveList.to(candidate) == to
+                    && MoveList.promotion(candidate) == move.getPromotionPiece()) {
+                return candidate;
+            }
+        }
+        return 0;
+    }
+
+//    everything but the check mark; expects the position's legal moves in the moves list
+    private StringBuilder format(ChessBoard board, int move, StringBuilder san) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece.PieceType piece = board.pieceAt(from).getPieceType();
+        boolean capture = MoveList.hasFlag(move, MoveList.CAPTURE);
+
+        if (MoveList.hasFlag(move, MoveList.CASTLE)) {
+            san.append((to & 7) == 6 ? "O-O" : "O-O-O");
+        } else if (piece == ChessPiece.PieceType.PAWN) {
+            if (capture) { san.append((char) ('a' + (from & 7))).append('x'); }
+            appendSquare(san, to);
+            ChessPiece.PieceType promotion = MoveList.promotion(move);
+            if (promotion != null) { san.append('=').append(letter(promotion)); }
+        } else {
+            san.append(letter(piece));
+            appendOrigin(board, move, piece, san);
+            if (capture) { san.append('x'); }
+            appendSquare(san, to);
+        }
+        return san;
+    }
+
+//    + or # as the position after the move calls for
+    private static StringBuilder appendCheck(ChessGame after, StringBuilder san) {
+        if (after.isInCheck(after.getTeamTurn())) {
+            san.append(after.hasAnyMove() ? '+' : '#');
+        }
+        return san;
+    }
+
+//    the file if it tells the pieces apart, else the rank, else both
+    private void appendOrigin(ChessBoard board, int move, ChessPiece.PieceType piece, StringBuilder san) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int other = moves.get(i);
+            int otherFrom = MoveList.from(other);
+            if (MoveList.to(other) != to || otherFrom == from
+                    || board.pieceAt(otherFrom).getPieceType() != piece) {
+                continue;
+            }
+            ambiguous = true;
+            sameColumn |= (otherFrom & 7) == (from & 7);
+            sameRow |= otherFrom >>> 3 == from >>> 3;
+        }
+        if (!ambiguous) { return; }
+        if (!sameColumn) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRow) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(san, from);
+        }
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        for (int i = 0; i < PIECE_TYPES.length; i++) {
+            if (PIECE_TYPES[i] == type) { return PIECE_LETTERS.charAt(i); }
+        }
+        throw new IllegalArgumentException("No letter for " + type);
+    }
+
+    static void appendSquare(StringBuilder text, int square) {
+        text.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') { return -1; }
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    private static int square(int row, int column) {
+        return (row - 1) * 8 + (column - 1);
+    }
+}
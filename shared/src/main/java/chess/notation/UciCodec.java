@@ -0,0 +1,65 @@
+package chess.notation;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Writes and reads moves in UCI long algebraic notation: the two squares and
+ * a lowercase promotion letter, such as e2e4 or e7e8q. Castling is the king's
+ * move, e1g1. No position is needed either way, so these are static.
+ */
+public final class UciCodec {
+    private static final String PROMOTION_LETTERS = "qbnr";
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
+
+    private UciCodec() {
+    }
+
+    public static String format(ChessMove move) {
+        StringBuilder uci = new StringBuilder(5);
+        appendPosition(uci, move.getStartPosition());
+        appendPosition(uci, move.getEndPosition());
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (promotion != null) {
+            int index = indexOf(promotion);
+            if (index < 0) { throw new IllegalArgumentException("Can't promote to " + promotion); }
+            uci.append(PROMOTION_LETTERS.charAt(index));
+        }
+        return uci.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text isn't a UCI move
+     */
+    public static ChessMove parse(String uci) {
+        if (uci.length() != 4 && uci.length() != 5) { throw badMove(uci); }
+        int from = SanCodec.square(uci.charAt(0), uci.charAt(1));
+        int to = SanCodec.square(uci.charAt(2), uci.charAt(3));
+        if (from < 0 || to < 0) { throw badMove(uci); }
+        ChessPiece.PieceType promotion = null;
+        if (uci.length() == 5) {
+            int index = PROMOTION_LETTERS.indexOf(uci.charAt(4));
+            if (index < 0) { throw badMove(uci); }
+            promotion = PROMOTION_TYPES[index];
+        }
+        return ChessMove.of(ChessPosition.of(from / 8 + 1, from % 8 + 1),
+                ChessPosition.of(to / 8 + 1, to % 8 + 1), promotion);
+    }
+
+    private static void appendPosition(StringBuilder uci, ChessPosition position) {
+        SanCodec.appendSquare(uci, (position.getRow() - 1) * 8 + position.getColumn() - 1);
+    }
+
+    private static int indexOf(ChessPiece.PieceType type) {
+        for (int i = 0; i < PROMOTION_TYPES.length; i++) {
+            if (PROMOTION_TYPES[i] == type) { return i; }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException badMove(String uci) {
+        return new IllegalArgumentException("Bad UCI move: " + uci);
+    }
+}
@@ -0,0 +1,225 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth, to check move
+ * generation against published counts and to measure its speed.
+ * <p>
+ * The root moves are split across a fork-join pool, each worker walking its
+ * subtree on its own copy of the game with doMove/undoMove. Plain node counts
+ * can use a shared {@link PerftHash}; the detailed counts always walk the
+ * full tree.
+ */
+public class Perft {
+    private final int threads;
+    private final PerftHash hash;
+
+    /**
+     * @param threads       worker threads for the root split; 1 walks the tree on the calling thread
+     * @param hashMegabytes size of the node count table, or 0 for none
+     */
+    public Perft(int threads, int hashMegabytes) {
+        this.threads = Math.max(1, threads);
+        this.hash = hashMegabytes > 0 ? new PerftHash(hashMegabytes) : null;
+    }
+
+    /**
+     * @return the number of leaf nodes at the given depth below the game's position
+     */
+    public long count(ChessGame game, int depth) {
+        if (depth <= 0) { return 1; }
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        MoveList rootMoves = new MoveList();
+        game.generateMoves(rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Long compute() {
+                    ChessGame copy = new ChessGame(game);
+                    copy.doMove(move);
+                    return countNodes(copy, depth - 1, hash);
+                }
+            });
+        }
+        long nodes = 0;
+        for (RecursiveTask<Long> task : runAll(tasks)) {
+            nodes += task.join();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return leaf counts at the given depth, with captures, checks and the rest broken out
+     */
+    public PerftStats stats(ChessGame game, int depth) {
+        PerftStats total = new PerftStats();
+        if (depth <= 0) { return total; }
+        List<RecursiveTask<PerftStats>> tasks = new ArrayList<>();
+        MoveList rootMoves = new MoveList();
+        game.generateMoves(rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected PerftStats compute() {
+                    PerftStats stats = new PerftStats();
+                    walk(new ChessGame(game), move, depth, stats, newMoveLists(depth));
+                    return stats;
+                }
+            });
+        }
+        for (RecursiveTask<PerftStats> task : runAll(tasks)) {
+            total.add(task.join());
+        }
+        return total;
+    }
+
+    private <T extends ForkJoinTask<?>> List<T> runAll(List<T> tasks) {
+        if (threads == 1) {
+            for (T task : tasks) {
+                task.invoke();
+            }
+            return tasks;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return tasks;
+    }
+
+    private static long countNodes(ChessGame game, int depth, PerftHash hash) {
+        return countNodes(game, depth, hash, newMoveLists(depth));
+    }
+
+    private static long countNodes(ChessGame game, int depth, PerftHash hash, MoveList[] movesByDepth) {
+        MoveList moves = movesByDepth[depth];
+        game.generateMoves(moves);
+        if (depth <= 1) { return depth == 1 ? moves.size() : 1; }
+
+        long key = game.getZobristKey();
+        if (hash != null) {
+            long stored = hash.get(key, depth);
+            if (stored >= 0) { return stored; }
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += countNodes(game, depth - 1, hash, movesByDepth);
+            game.undoMove();
+        }
+        if (hash != null) { hash.put(key, depth, nodes); }
+        return nodes;
+    }
+
+//    one reusable list per remaining depth, so a walk allocates nothing per node
+    private static MoveList[] newMoveLists(int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0) + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+//    plays a move and either classifies it as a leaf or walks on below it
+    private static void walk(ChessGame game, int move, int depth, PerftStats stats, MoveList[] movesByDepth) {
+        game.doMove(move);
+        if (depth > 1) {
+            MoveList replies = movesByDepth[depth - 1];
+            game.generateMoves(replies);
+            for (int i = 0; i < replies.size(); i++) {
+                walk(game, replies.get(i), depth - 1, stats, movesByDepth);
+            }
+            game.undoMove();
+            return;
+        }
+
+        ChessGame.TeamColor defender = game.getTeamTurn();
+        boolean check = game.isInCheck(defender);
+        boolean checkmate = check && game.isInCheckmate(defender);
+        game.undoMove();
+
+        stats.addLeaf(MoveList.hasFlag(move, MoveList.CAPTURE), MoveList.hasFlag(move, MoveList.EN_PASSANT),
+                MoveList.hasFlag(move, MoveList.CASTLE), MoveList.isPromotion(move), check, checkmate);
+    }
+
+    /**
+     * Runs perft from the command line.
+     * <p>
+     * Usage: {@code [depth] [-threads N] [-hash MB] [-stats] [-fen "FEN"]}. With a
+     * FEN, prints the count below each root move and the total. Without one,
+     * checks every {@link ReferencePosition} up to the depth and exits with
+     * status 1 if any count differs.
+     */
+    public static void main(String[] args) {
+        int depth = 4;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 0;
+        boolean detailed = false;
+        String fen = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                case "-stats" -> detailed = true;
+                case "-fen" -> fen = args[++i];
+                default -> depth = Integer.parseInt(args[i]);
+            }
+        }
+        Perft perft = new Perft(threads, hashMegabytes);
+
+        if (fen != null) {
+            ChessGame game = ChessGame.fromFen(fen);
+            long total = 0;
+            long start = System.nanoTime();
+            MoveList rootMoves = new MoveList();
+            game.generateMoves(rootMoves);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                game.doMove(rootMoves.get(i));
+                long nodes = perft.count(game, depth - 1);
+                game.undoMove();
+                total += nodes;
+                System.out.println(MoveList.toChessMove(rootMoves.get(i)) + ": " + nodes);
+            }
+            report("total", depth, total, System.nanoTime() - start);
+            if (detailed) { System.out.println(perft.stats(game, depth)); }
+            return;
+        }
+
+        boolean allPassed = true;
+        for (ReferencePosition position : ReferencePosition.values()) {
+            int positionDepth = Math.min(depth, position.maxDepth());
+            ChessGame game = ChessGame.fromFen(position.getFen());
+            long start = System.nanoTime();
+            long nodes = detailed ? perft.stats(game, positionDepth).getNodes() : perft.count(game, positionDepth);
+            long elapsed = System.nanoTime() - start;
+            boolean passed = nodes == position.expectedNodes(positionDepth);
+            allPassed &= passed;
+            report((passed ? "ok   " : "FAIL ") + position, positionDepth, nodes, elapsed);
+        }
+        if (!allPassed) { System.exit(1); }
+    }
+
+    private static void report(String label, int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s depth %d  %,14d nodes  %8.3f s  %,12.0f nodes/s%n",
+                label, depth, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,45 @@
+package chess.perft;
+
+/**
+ * Fixed-size table of subtree node counts, keyed by Zobrist key and depth.
+ * <p>
+ * Threads share one table without locking. Each slot holds the count and
+ * depth packed into one long, next to the key XORed with that long; a slot
+ * torn by two concurrent writers fails the check and reads as a miss.
+ */
+class PerftHash {
+    private final long[] slots;
+    private final int mask;
+
+    /**
+     * @param megabytes approximate table size; rounded down to a power of two slots
+     */
+    PerftHash(int megabytes) {
+        long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.slots = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the stored node count, or -1 if the position is not in the table at this depth
+     */
+    long get(long key, int depth) {
+        int index = index(key, depth);
+        long check = slots[index];
+        long data = slots[index + 1];
+        if ((check ^ data) != key || (data & 0xFF) != depth) { return -1; }
+        return data >>> 8;
+    }
+
+    void put(long key, int depth, long nodes) {
+        int index = index(key, depth);
+        long data = nodes << 8 | depth;
+        slots[index] = key ^ data;
+        slots[index + 1] = data;
+    }
+
+    private int index(long key, int depth) {
+        return (int) ((key ^ depth * 0x9E3779B97F4A7C15L) & mask) << 1;
+    }
+}
@@ -0,0 +1,87 @@
+package chess.perft;
+
+import java.util.Objects;
+
+/**
+ * Leaf counts from a perft run, broken down the way the standard reference
+ * tables are: every figure counts moves made on the last ply.
+ */
+public class PerftStats {
+    private long nodes;
+    private long captures;
+    private long enPassants;
+    private long castles;
+    private long promotions;
+    private long checks;
+    private long checkmates;
+
+    void addLeaf(boolean capture, boolean enPassant, boolean castle, boolean promotion, boolean check,
+                 boolean checkmate) {
+        nodes++;
+        if (capture) { captures++; }
+        if (enPassant) { enPassants++; }
+        if (castle) { castles++; }
+        if (promotion) { promotions++; }
+        if (check) { checks++; }
+        if (checkmate) { checkmates++; }
+    }
+
+    void add(PerftStats other) {
+        nodes += other.nodes;
+        captures += other.captures;
+        enPassants += other.enPassants;
+        castles += other.castles;
+        promotions += other.promotions;
+        checks += other.checks;
+        checkmates += other.checkmates;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getCaptures() {
+        return captures;
+    }
+
+    public long getEnPassants() {
+        return enPassants;
+    }
+
+    public long getCastles() {
+        return castles;
+    }
+
+    public long getPromotions() {
+        return promotions;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getCheckmates() {
+        return checkmates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PerftStats that)) {
+            return false;
+        }
+        return nodes == that.nodes && captures == that.captures && enPassants == that.enPassants
+                && castles == that.castles && promotions == that.promotions && checks == that.checks
+                && checkmates == that.checkmates;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nodes, captures, enPassants, castles, promotions, checks, checkmates);
+    }
+
+    @Override
+    public String toString() {
+        return "nodes=" + nodes + " captures=" + captures + " e.p.=" + enPassants + " castles=" + castles
+                + " promotions=" + promotions + " checks=" + checks + " checkmates=" + checkmates;
+    }
+}
@@ -0,0 +1,22 @@
+package chess.pgn;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game as read from a PGN file, before its moves are checked
+ *
+ * @param tags   the tag pairs in file order, such as Event, White and FEN
+ * @param moves  the main line in standard algebraic notation, without move numbers,
+ *               comments, variations or annotation glyphs
+ * @param result 1-0, 0-1, 1/2-1/2 or *
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+
+    /**
+     * @return the value of a tag, or null if the game doesn't have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+}
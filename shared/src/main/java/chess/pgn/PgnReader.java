@@ -0,0 +1,212 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games from PGN text one at a time.
+ * <p>
+ * Input goes through one fixed-size buffer and only the game being read is
+ * held in memory, so a file of any size is read in constant space. Comments,
+ * variations, numeric annotation glyphs and move numbers are dropped while
+ * reading; only the tags, the main line and the result are kept. A game that
+ * ends without a result token ends at the next tag section or the end of input.
+ */
+public final class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int previous = '\n';
+    private final StringBuilder token = new StringBuilder();
+
+    public PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads UTF-8 text from a stream
+     */
+    public PgnReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the next game, or null at the end of the input
+     * @throws IllegalArgumentException if a tag pair is malformed; the rest of
+     * that game is read and dropped, so the next call returns the game after it
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        String result = null;
+        IllegalArgumentException badTag = null;
+
+        int c = skipSpaceAndComments();
+        while (c == '[') {
+            read();
+            try {
+                readTag(tags);
+            } catch (IllegalArgumentException e) {
+                if (badTag == null) { badTag = e; }
+                if (previous != '\n') { skipLine(); }
+            }
+            c = skipSpaceAndComments();
+        }
+        while (c != EOF && result == null) {
+            if (c == '[' && previous == '\n') { break; }
+            if (c == '(') {
+                skipVariation();
+            } else if (c == '"') {
+                skipString();
+            } else if (c == '$' || c == '.' || c == ')') {
+                read();
+                if (c == '$') { readToken(); }
+            } else {
+                String symbol = readToken();
+                if (isResult(symbol)) {
+                    result = symbol;
+                } else if (!symbol.isEmpty() && !isMoveNumber(symbol)) {
+                    moves.add(symbol);
+                }
+            }
+            c = skipSpaceAndComments();
+        }
+
+        if (badTag != null) { throw badTag; }
+        if (tags.isEmpty() && moves.isEmpty() && result == null) { return null; }
+        if (result == null) { result = tags.getOrDefault("Result", "*"); }
+        return new PgnGame(tags, moves, result);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != EOF) {
+            position++;
+            previous = c;
+        }
+        return c;
+    }
+
+//    whitespace, {brace comments}, ; rest-of-line comments and % escape lines
+    private int skipSpaceAndComments() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '%' && previous == '\n') {
+                skipLine();
+            } else if (c == ';') {
+                skipLine();
+            } else if (c == '{') {
+                while (c != EOF && c != '}') {
+                    c = read();
+                }
+            } else if (c != EOF && Character.isWhitespace(c)) {
+                read();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c = read();
+        while (c != EOF && c != '\n') {
+            c = read();
+        }
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        do {
+            int c = skipSpaceAndComments();
+            if (c == EOF) { return; }
+            read();
+            if (c == '(') { depth++; }
+            if (c == ')') { depth--; }
+        } while (depth > 0);
+    }
+
+//    a quoted string has no place in movetext; drop it up to the closing quote or the end of the line
+    private void skipString() throws IOException {
+        read();
+        int c;
+        do {
+            c = read();
+        } while (c != EOF && c != '"' && c != '\n');
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        skipSpaceAndComments();
+        String name = readToken();
+        int c = skipSpaceAndComments();
+        if (name.isEmpty() || c != '"') { throw new IllegalArgumentException("Bad PGN tag: " + name); }
+        read();
+        token.setLength(0);
+        for (c = read(); c != '"'; c = read()) {
+            if (c == EOF || c == '\n') { throw new IllegalArgumentException("Unterminated PGN tag: " + name); }
+            if (c == '\\') { c = read(); }
+            token.append((char) c);
+        }
+        String value = token.toString();
+        for (c = read(); c != ']'; c = read()) {
+            if (c == EOF || c == '\n') { throw new IllegalArgumentException("Unterminated PGN tag: " + name); }
+        }
+        tags.put(name, value);
+    }
+
+    private String readToken() throws IOException {
+        token.setLength(0);
+        for (int c = peek(); isSymbolChar(c); c = peek()) {
+            token.append((char) read());
+        }
+//        skip a character no token can hold, so a stray one can't stall the reader
+        if (token.isEmpty() && peek() != EOF) { read(); }
+        return token.toString();
+    }
+
+    private static boolean isSymbolChar(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                || c == '_' || c == '+' || c == '#' || c == '=' || c == ':' || c == '-' || c == '/'
+                || c == '*' || c == '!' || c == '?';
+    }
+
+    private static boolean isResult(String symbol) {
+        return symbol.equals("1-0") || symbol.equals("0-1") || symbol.equals("1/2-1/2") || symbol.equals("*");
+    }
+
+//    the number of "12." or "12..."; the dots are read separately
+    private static boolean isMoveNumber(String symbol) {
+        for (int i = 0; i < symbol.length(); i++) {
+            if (symbol.charAt(i) < '0' || symbol.charAt(i) > '9') { return false; }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.notation.SanCodec;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Plays PGN games through {@link ChessGame}, checking every move.
+ * <p>
+ * Each move is read by {@link SanCodec} against the legal moves of the
+ * position, generated once per ply; a move that matches none, or more than
+ * one, stops the game there. A replay holds one game at a time, so a
+ * batch runs in constant memory however long the input is. A PgnReplay reuses
+ * one codec, so each thread needs its own.
+ */
+public final class PgnReplay {
+    private final SanCodec san = new SanCodec();
+
+    /**
+     * Plays one game from its starting position, or from its FEN tag if it has one
+     */
+    public ReplayResult replay(PgnGame pgn) {
+        ChessGame game;
+        String fen = pgn.tag("FEN");
+        try {
+            game = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            return new ReplayResult(pgn, null, 0);
+        }
+        for (int ply = 0; ply < pgn.moves().size(); ply++) {
+            int move = san.resolve(game, pgn.moves().get(ply));
+            if (move == 0) { return new ReplayResult(pgn, game, ply); }
+            game.doMove(move);
+        }
+        return new ReplayResult(pgn, game, -1);
+    }
+
+    /**
+     * Reads and replays every game in the input, handing each result on as soon
+     * as it is ready; nothing is kept once the consumer returns
+     *
+     * @return how many games and plies were replayed, and how fast
+     */
+    public ReplayStats replayAll(PgnReader reader, Consumer<ReplayResult> results) throws IOException {
+        long start = System.nanoTime();
+        long games = 0;
+        long illegalGames = 0;
+        long plies = 0;
+        for (PgnGame pgn = reader.next(); pgn != null; pgn = reader.next()) {
+            ReplayResult result = replay(pgn);
+            games++;
+            if (result.isComplete()) {
+                plies += pgn.moves().size();
+            } else {
+                illegalGames++;
+                plies += Math.max(result.illegalPly(), 0);
+            }
+            results.accept(result);
+        }
+        return new ReplayStats(games, illegalGames, plies, System.nanoTime() - start);
+    }
+}
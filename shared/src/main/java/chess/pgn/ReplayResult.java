@@ -0,0 +1,29 @@
+package chess.pgn;
+
+import chess.ChessGame;
+
+/**
+ * What replaying one PGN game produced
+ *
+ * @param pgn        the game as read
+ * @param game       the position after the last move that could be played, or null if the
+ *                   game's FEN tag couldn't be read
+ * @param illegalPly index into the game's moves of the first one that isn't a legal move, or -1
+ *                   if every move was played
+ */
+public record ReplayResult(PgnGame pgn, ChessGame game, int illegalPly) {
+
+    /**
+     * @return True if every move in the game was legal
+     */
+    public boolean isComplete() {
+        return game != null && illegalPly < 0;
+    }
+
+    /**
+     * @return the first move that couldn't be played, or null if there was none
+     */
+    public String illegalMove() {
+        return illegalPly < 0 || illegalPly >= pgn.moves().size() ? null : pgn.moves().get(illegalPly);
+    }
+}
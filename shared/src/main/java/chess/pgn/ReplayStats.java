@@ -0,0 +1,26 @@
+package chess.pgn;
+
+/**
+ * Totals for a batch replay
+ *
+ * @param games         games read
+ * @param illegalGames  games stopped by an illegal move or a bad FEN tag
+ * @param plies         moves played across all games
+ * @param elapsedNanos  wall-clock time spent reading and replaying
+ */
+public record ReplayStats(long games, long illegalGames, long plies, long elapsedNanos) {
+
+    public double gamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    public double pliesPerSecond() {
+        return elapsedNanos == 0 ? 0 : plies * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games (%d illegal), %d plies, %.0f games/s",
+                games, illegalGames, plies, gamesPerSecond());
+    }
+}
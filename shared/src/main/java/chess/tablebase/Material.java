@@ -0,0 +1,92 @@
+package chess.tablebase;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * The endings covered by tablebases: a king and one or two pieces against a
+ * bare king.
+ * <p>
+ * Tables are built with white as the stronger side. A position is indexed by
+ * the side to move, the white king, the black king and then each white piece
+ * in the order listed here, six bits per square numbered (row - 1) * 8 + (col - 1).
+ */
+public enum Material {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+    private final ChessPiece.PieceType[] pieces;
+
+    Material(ChessPiece.PieceType... pieces) {
+        this.pieces = pieces;
+    }
+
+    /**
+     * @return the stronger side's pieces besides the king, in index order
+     */
+    public ChessPiece.PieceType[] pieces() {
+        return pieces.clone();
+    }
+
+    int pieceCount() {
+        return pieces.length;
+    }
+
+    ChessPiece.PieceType piece(int i) {
+        return pieces[i];
+    }
+
+    /**
+     * @return the number of index entries, valid or not
+     */
+    public int size() {
+        return 2 << (6 * (2 + pieces.length));
+    }
+
+    /**
+     * @param whiteToMove   whether the stronger side is to move
+     * @param pieceSquares the squares of the stronger side's pieces, in index order
+     */
+    int index(boolean whiteToMove, int whiteKing, int blackKing, int... pieceSquares) {
+        int index = (whiteToMove ? 0 : 1) << 12 | whiteKing << 6 | blackKing;
+        for (int square : pieceSquares) {
+            index = index << 6 | square;
+        }
+        return index;
+    }
+
+    /**
+     * @return the square in an index of the piece at a position: 0 is the white
+     * king, 1 the black king, and 2 on the pieces in order
+     */
+    int square(int index, int piece) {
+        return index >>> (6 * (pieces.length + 1 - piece)) & 0x3F;
+    }
+
+    boolean whiteToMove(int index) {
+        return index >>> (6 * (pieces.length + 2)) == 0;
+    }
+
+    /**
+     * Finds the table for the pieces on a board
+     *
+     * @return the stronger side, or null if one side isn't a bare king facing one of these sets
+     */
+    static ChessGame.TeamColor strongSide(ChessBoard board, Material material) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            ChessGame.TeamColor weak = color == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if (Long.bitCount(board.occupancy(weak)) != 1 || board.kingSquare(weak) < 0
+                    || board.kingSquare(color) < 0) { continue; }
+            boolean matches = Long.bitCount(board.occupancy(color)) == material.pieces.length + 1;
+            for (ChessPiece.PieceType type : material.pieces) {
+                matches &= Long.bitCount(board.pieces(color, type)) == 1;
+            }
+            if (matches) { return color; }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package chess.tablebase;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Probes tablebase files written by {@link TablebaseGenerator}, memory mapped
+ * so a probe is an index calculation and one read. Positions where the
+ * stronger side is black are mirrored top to bottom and probed as white.
+ * A Tablebase may be shared between threads.
+ */
+public class Tablebase {
+    private final Map<Material, TablebaseFile> files = new EnumMap<>(Material.class);
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps every NAME.tb file in a directory; missing tables are simply not probed
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        for (Material material : Material.values()) {
+            Path file = directory.resolve(material.name() + ".tb");
+            if (Files.exists(file)) {
+                TablebaseFile table = TablebaseFile.open(file);
+                if (table.size() != material.size()) {
+                    throw new IllegalArgumentException("Wrong size for " + material + ": " + file);
+                }
+                tablebase.files.put(material, table);
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return True if the table for the ending was found
+     */
+    public boolean covers(Material material) {
+        return files.containsKey(material);
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @return the result for the team to move, or null if no loaded table covers the position
+     */
+    public TablebaseResult probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int pieceCount = Long.bitCount(board.occupied());
+        if (pieceCount < 3 || pieceCount > 4) { return null; }
+        for (Map.Entry<Material, TablebaseFile> entry : files.entrySet()) {
+            Material material = entry.getKey();
+            if (material.pieceCount() + 2 != pieceCount) { continue; }
+            ChessGame.TeamColor strong = Material.strongSide(board, material);
+            if (strong == null) { continue; }
+//            tables assume no castling
+            if (board.pieces(strong, ChessPiece.PieceType.ROOK) != 0
+                    && (game.canCastleKingSide(strong) || game.canCastleQueenSide(strong))) { return null; }
+
+            ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+            int[] pieces = new int[material.pieceCount()];
+            for (int i = 0; i < pieces.length; i++) {
+                pieces[i] = Long.numberOfTrailingZeros(board.pieces(strong, material.piece(i))) ^ flip;
+            }
+            boolean strongToMove = game.getTeamTurn() == strong;
+            int index = material.index(strongToMove, board.kingSquare(strong) ^ flip,
+                    board.kingSquare(weak) ^ flip, pieces);
+            int value = entry.getValue().get(index);
+            if (value == 0) { return TablebaseResult.DRAW; }
+            return new TablebaseResult(strongToMove ? TablebaseResult.Outcome.WIN : TablebaseResult.Outcome.LOSS,
+                    value - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the move that keeps the best result: the quickest mate when
+     * winning, a move that holds the draw, or the longest resistance when losing
+     *
+     * @return the move, or null if the position isn't covered or has no legal moves
+     */
+    public ChessMove bestMove(ChessGame game) {
+        if (probe(game) == null) { return null; }
+        ChessGame child = new ChessGame(game);
+        MoveList moves = new MoveList();
+        child.generateMoves(moves);
+        int bestMove = 0;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            child.doMove(move);
+            int rank = rank(child);
+            child.undoMove();
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = move;
+            }
+        }
+        return bestMove == 0 ? null : MoveList.toChessMove(bestMove);
+    }
+
+//    how good a move was for its mover, from the position it leads to: quick wins
+//    highest, then draws at 0, then slow losses; positions off the tables rank lowest
+    private int rank(ChessGame child) {
+        TablebaseResult result = probe(child);
+        if (result == null) {
+            if (child.hasInsufficientMaterial()) { return 0; }
+            return child.isInCheckmate(child.getTeamTurn()) ? 1000 : Integer.MIN_VALUE + 1;
+        }
+        return switch (result.outcome()) {
+            case LOSS -> 1000 - result.pliesToMate();
+            case DRAW -> 0;
+            case WIN -> -1000 + result.pliesToMate();
+        };
+    }
+}
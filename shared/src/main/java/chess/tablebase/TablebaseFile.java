@@ -0,0 +1,98 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A table of small values, one per index, packed into as few bits each as
+ * the largest value needs.
+ * <p>
+ * The file is a 16-byte little-endian header (the magic "CTB1", the bits per
+ * value and the number of values) followed by the values as one little-endian
+ * bit stream, with eight bytes of padding so every value can be read with a
+ * single long load.
+ */
+final class TablebaseFile {
+    private static final int MAGIC = 'C' | 'T' << 8 | 'B' << 16 | '1' << 24;
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer data;
+    private final int bits;
+    private final long mask;
+    private final long count;
+
+    private TablebaseFile(ByteBuffer data, int bits, long count) {
+        this.data = data;
+        this.bits = bits;
+        this.mask = (1L << bits) - 1;
+        this.count = count;
+    }
+
+    /**
+     * Maps a table; the mapping outlives the channel, which is closed before this returns
+     *
+     * @throws IllegalArgumentException if the file is not a table
+     */
+    static TablebaseFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a tablebase file: " + file);
+            }
+            int bits = data.getInt(4);
+            long count = data.getLong(8);
+            if (bits < 1 || bits > 8 || data.capacity() < HEADER_SIZE + (count * bits + 7) / 8 + 8) {
+                throw new IllegalArgumentException("Truncated tablebase file: " + file);
+            }
+            return new TablebaseFile(data, bits, count);
+        }
+    }
+
+    /**
+     * Packs values of 0-255 and writes them to a file
+     */
+    static void write(Path file, byte[] values) throws IOException {
+        int max = 1;
+        for (byte value : values) {
+            max = Math.max(max, value & 0xFF);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(max);
+        long[] words = new long[(int) (((long) values.length * bits + 63) / 64) + 1];
+        for (int i = 0; i < values.length; i++) {
+            long bit = (long) i * bits;
+            long value = values[i] & 0xFF;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            words[word] |= value << shift;
+            if (shift + bits > 64) { words[word + 1] |= value >>> (64 - shift); }
+        }
+
+        long dataSize = ((long) values.length * bits + 7) / 8;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + dataSize + 8)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(bits).putLong(values.length);
+        for (long i = 0; i < dataSize; i++) {
+            buffer.put((byte) (words[(int) (i >>> 3)] >>> ((i & 7) * 8)));
+        }
+        buffer.position(buffer.capacity()).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    long size() {
+        return count;
+    }
+
+    int get(int index) {
+        long bit = (long) index * bits;
+        return (int) (data.getLong(HEADER_SIZE + (int) (bit >>> 3)) >>> (bit & 7) & mask);
+    }
+}
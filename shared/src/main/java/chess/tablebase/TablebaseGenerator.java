@@ -0,0 +1,410 @@
+package chess.tablebase;
+
+import chess.AttackTables;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds complete tablebases by retrograde analysis.
+ * <p>
+ * Every index is first classified: impossible, mate, stalemate, a draw because
+ * the defending king can take a piece, or otherwise undecided, in which case
+ * the defender's legal moves are counted. Starting from the mates, results
+ * then spread backwards one ply at a time. A position the defender just lost
+ * makes every position that could move into it a win for white; a position
+ * white just won knocks one move off the count of every defender position
+ * that leads to it, and a count that reaches zero is a loss. Whatever is left
+ * undecided is a draw. Pawn endings also seed wins from the positions right
+ * after promotion, which come from the tables of the promoted piece.
+ * <p>
+ * Both passes run on a fork-join pool. Each table value is 0 for a draw or an
+ * impossible position, otherwise the number of plies to mate plus one; whose
+ * win it is follows from the side to move.
+ */
+public class TablebaseGenerator {
+    private static final byte UNKNOWN = 0;
+//    decided draws, kept apart from UNKNOWN so retrograde steps skip them
+    private static final byte DRAW = (byte) 254;
+    private static final byte INVALID = (byte) 255;
+    private static final int CHUNK = 1 << 14;
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final ForkJoinPool pool;
+    private final Map<Material, byte[]> built = new EnumMap<>(Material.class);
+
+    /**
+     * @param threads worker threads for the fork-join pool
+     */
+    public TablebaseGenerator(int threads) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Builds a table, and first any table it promotes into
+     *
+     * @return one value per index, as described in the class comment
+     */
+    public synchronized byte[] generate(Material material) {
+        byte[] values = built.get(material);
+        if (values != null) { return values; }
+        if (material == Material.KPK) {
+            generate(Material.KQK);
+            generate(Material.KRK);
+        }
+        values = new Builder(material).build();
+        built.put(material, values);
+        return values;
+    }
+
+    /**
+     * Builds a table and writes it to the directory as NAME.tb
+     */
+    public void write(Material material, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TablebaseFile.write(directory.resolve(material.name() + ".tb"), generate(material));
+    }
+
+    /**
+     * Writes tablebase files. Arguments: [-threads N] [-out DIRECTORY] [MATERIAL ...],
+     * building every table when none are named.
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path directory = Path.of("tablebases");
+        List<Material> materials = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-out" -> directory = Path.of(args[++i]);
+                default -> materials.add(Material.valueOf(args[i].toUpperCase()));
+            }
+        }
+        if (materials.isEmpty()) { materials.addAll(List.of(Material.values())); }
+
+        TablebaseGenerator generator = new TablebaseGenerator(threads);
+        for (Material material : materials) {
+            generator.write(material, directory);
+        }
+    }
+
+    /**
+     * @return the most plies to mate in a table
+     */
+    public static int longestMate(byte[] values) {
+        int longest = 0;
+        for (byte value : values) {
+            if (value != UNKNOWN && value != DRAW && value != INVALID) {
+                longest = Math.max(longest, (value & 0xFF) - 1);
+            }
+        }
+        return longest;
+    }
+
+    private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> AttackTables.kingAttacks(square);
+            case QUEEN -> AttackTables.queenAttacks(square, occupied);
+            case ROOK -> AttackTables.rookAttacks(square, occupied);
+            case BISHOP -> AttackTables.bishopAttacks(square, occupied);
+            case KNIGHT -> AttackTables.knightAttacks(square);
+            case PAWN -> AttackTables.pawnAttacks(ChessGame.TeamColor.WHITE, square);
+        };
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) { values = Arrays.copyOf(values, size * 2); }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+    }
+
+    private final class Builder {
+        private final Material material;
+        private final int pieces;
+        private final byte[] values;
+//        defender moves not yet known to lose, per black-to-move index
+        private final byte[] counts;
+//        wins reached through promotion, by plies to mate
+        private final List<IntList> promotionWins = new ArrayList<>();
+
+        Builder(Material material) {
+            this.material = material;
+            this.pieces = material.pieceCount();
+            this.values = new byte[material.size()];
+            this.counts = new byte[material.size()];
+        }
+
+        byte[] build() {
+            IntList frontier = pool.invoke(new Classify(0, values.length));
+            int plies = 0;
+            while (frontier.size > 0 || plies < promotionWins.size()) {
+                IntList next = frontier.size == 0 ? new IntList()
+                        : pool.invoke(new Retreat(frontier, 0, frontier.size, plies));
+                plies++;
+                if (plies < promotionWins.size()) {
+                    IntList seeds = promotionWins.get(plies);
+                    for (int i = 0; i < seeds.size; i++) {
+                        if (BYTES.compareAndSet(values, seeds.values[i], UNKNOWN, (byte) (plies + 1))) {
+                            next.add(seeds.values[i]);
+                        }
+                    }
+                }
+                frontier = next;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == DRAW || values[i] == INVALID) { values[i] = 0; }
+            }
+            return values;
+        }
+
+        private int[] squares(int index) {
+            int[] squares = new int[pieces + 2];
+            for (int i = 0; i < squares.length; i++) {
+                squares[i] = material.square(index, i);
+            }
+            return squares;
+        }
+
+        private int indexOf(boolean whiteToMove, int[] squares) {
+            int index = whiteToMove ? 0 : 1;
+            for (int square : squares) {
+                index = index << 6 | square;
+            }
+            return index;
+        }
+
+        private long occupancy(int[] squares) {
+            long occupied = 0;
+            for (int square : squares) {
+                occupied |= 1L << square;
+            }
+            return occupied;
+        }
+
+//        attacks on a square by white, leaving out the piece at position skip (or -1)
+        private boolean attackedByWhite(int[] squares, int target, long occupied, int skip) {
+            if ((AttackTables.kingAttacks(squares[0]) & (1L << target)) != 0) { return true; }
+            for (int i = 0; i < pieces; i++) {
+                if (i + 2 != skip && (attacks(material.piece(i), squares[i + 2], occupied) & (1L << target)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isValid(int index, int[] squares) {
+            long occupied = occupancy(squares);
+            if (Long.bitCount(occupied) != squares.length) { return false; }
+            if ((AttackTables.kingAttacks(squares[0]) & (1L << squares[1])) != 0) { return false; }
+            for (int i = 0; i < pieces; i++) {
+                int square = squares[i + 2];
+                if (material.piece(i) == ChessPiece.PieceType.PAWN && (square < 8 || square >= 56)) { return false; }
+            }
+//            white to move while black is in check can't arise
+            return !material.whiteToMove(index) || !attackedByWhite(squares, squares[1], occupied, -1);
+        }
+
+        private void classify(int index, IntList mates) {
+            int[] squares = squares(index);
+            if (!isValid(index, squares)) {
+                values[index] = INVALID;
+                return;
+            }
+            if (material.whiteToMove(index)) {
+                if (material == Material.KPK) { seedPromotions(squares); }
+                return;
+            }
+
+            long occupied = occupancy(squares);
+            int blackKing = squares[1];
+            long withoutKing = occupied & ~(1L << blackKing);
+            long targets = AttackTables.kingAttacks(blackKing) & ~AttackTables.kingAttacks(squares[0]);
+            int moves = 0;
+            while (targets != 0) {
+                int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int captured = -1;
+                for (int i = 2; i < squares.length; i++) {
+                    if (squares[i] == target) { captured = i; }
+                }
+                if (attackedByWhite(squares, target, withoutKing, captured)) { continue; }
+//                taking a piece leaves too little to mate with
+                if (captured >= 0) {
+                    values[index] = DRAW;
+                    return;
+                }
+                moves++;
+            }
+            if (moves > 0) {
+                counts[index] = (byte) moves;
+            } else if (attackedByWhite(squares, blackKing, occupied, -1)) {
+                values[index] = 1;
+                mates.add(index);
+            } else {
+                values[index] = DRAW;
+            }
+        }
+
+//        a pawn on the seventh promotes into a position of the queen or rook table
+        private void seedPromotions(int[] squares) {
+            int pawn = squares[2];
+            int target = pawn + 8;
+            if (pawn < 48 || (occupancy(squares) & (1L << target)) != 0) { return; }
+            int best = Integer.MAX_VALUE;
+            for (Material promoted : List.of(Material.KQK, Material.KRK)) {
+                int value = built.get(promoted)[promoted.index(false, squares[0], squares[1], target)] & 0xFF;
+                if (value > 0) { best = Math.min(best, value); }
+            }
+            if (best == Integer.MAX_VALUE) { return; }
+//            the promoted position's plies to mate, plus the promotion itself
+            synchronized (promotionWins) {
+                while (promotionWins.size() <= best) {
+                    promotionWins.add(new IntList());
+                }
+                promotionWins.get(best).add(indexOf(true, squares));
+            }
+        }
+
+//        from a black-to-move loss, every white move into it wins
+        private void retreatWhite(int index, int plies, IntList next) {
+            int[] squares = squares(index);
+            long occupied = occupancy(squares);
+            byte won = (byte) (plies + 2);
+            for (int piece = 0; piece < squares.length; piece++) {
+                if (piece == 1) { continue; }
+                int square = squares[piece];
+                long origins;
+                if (piece == 0) {
+                    origins = AttackTables.kingAttacks(square) & ~occupied;
+                } else if (material.piece(piece - 2) == ChessPiece.PieceType.PAWN) {
+                    origins = 0;
+                    if (square >= 16 && (occupied & (1L << (square - 8))) == 0) {
+                        origins |= 1L << (square - 8);
+                        if (square >>> 3 == 3 && (occupied & (1L << (square - 16))) == 0) {
+                            origins |= 1L << (square - 16);
+                        }
+                    }
+                } else {
+                    origins = attacks(material.piece(piece - 2), square, occupied) & ~occupied;
+                }
+                while (origins != 0) {
+                    squares[piece] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    int previous = indexOf(true, squares);
+                    if (BYTES.compareAndSet(values, previous, UNKNOWN, won)) { next.add(previous); }
+                }
+                squares[piece] = square;
+            }
+        }
+
+//        from a white-to-move win, every black move into it is one fewer way out
+        private void retreatBlack(int index, int plies, IntList next) {
+            int[] squares = squares(index);
+            long occupied = occupancy(squares);
+            int blackKing = squares[1];
+            long origins = AttackTables.kingAttacks(blackKing) & ~occupied;
+            while (origins != 0) {
+                squares[1] = Long.numberOfTrailingZeros(origins);
+                origins &= origins - 1;
+                int previous = indexOf(false, squares);
+                if (values[previous] != UNKNOWN) { continue; }
+//                several workers can reach the same position in one ply; exactly one sees the count run out
+                byte count;
+                do {
+                    count = (byte) BYTES.getVolatile(counts, previous);
+                } while (!BYTES.compareAndSet(counts, previous, count, (byte) (count - 1)));
+                if (count == 1) {
+                    values[previous] = (byte) (plies + 2);
+                    next.add(previous);
+                }
+            }
+        }
+
+        @SuppressWarnings("serial")
+        private final class Classify extends RecursiveTask<IntList> {
+            private final int start;
+            private final int end;
+
+            Classify(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected IntList compute() {
+                if (end - start > CHUNK) {
+                    int middle = (start + end) >>> 1;
+                    Classify right = new Classify(middle, end);
+                    right.fork();
+                    IntList mates = new Classify(start, middle).compute();
+                    mates.addAll(right.join());
+                    return mates;
+                }
+                IntList mates = new IntList();
+                for (int index = start; index < end; index++) {
+                    classify(index, mates);
+                }
+                return mates;
+            }
+        }
+
+        @SuppressWarnings("serial")
+        private final class Retreat extends RecursiveTask<IntList> {
+            private final IntList frontier;
+            private final int start;
+            private final int end;
+            private final int plies;
+
+            Retreat(IntList frontier, int start, int end, int plies) {
+                this.frontier = frontier;
+                this.start = start;
+                this.end = end;
+                this.plies = plies;
+            }
+
+            @Override
+            protected IntList compute() {
+                if (end - start > CHUNK / 16) {
+                    int middle = (start + end) >>> 1;
+                    Retreat right = new Retreat(frontier, middle, end, plies);
+                    right.fork();
+                    IntList next = new Retreat(frontier, start, middle, plies).compute();
+                    next.addAll(right.join());
+                    return next;
+                }
+                IntList next = new IntList();
+                for (int i = start; i < end; i++) {
+                    int index = frontier.values[i];
+                    if (material.whiteToMove(index)) {
+                        retreatBlack(index, plies, next);
+                    } else {
+                        retreatWhite(index, plies, next);
+                    }
+                }
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package chess.tablebase;
+
+/**
+ * The perfect-play result of a position, for the team to move
+ *
+ * @param outcome       whether the team to move wins, draws or loses
+ * @param pliesToMate   half moves until mate with best play by both sides, or 0 for a draw
+ */
+public record TablebaseResult(Outcome outcome, int pliesToMate) {
+    public enum Outcome { WIN, DRAW, LOSS }
+
+    public static final TablebaseResult DRAW = new TablebaseResult(Outcome.DRAW, 0);
+}
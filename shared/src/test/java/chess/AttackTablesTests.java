@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttackTablesTests {
+    private static final int[][] ROOK_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static long bit(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? 1L << (row * 8 + col) : 0;
+    }
+
+//    attacks worked out by stepping square by square, stopping on the first occupied square
+    private static long walk(int square, long occupied, int[][] steps, boolean slide) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int row = square / 8 + step[0];
+            int col = square % 8 + step[1];
+            while (bit(row, col) != 0) {
+                attacks |= bit(row, col);
+                if (!slide || (occupied & bit(row, col)) != 0) { break; }
+                row += step[0];
+                col += step[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    void cornerAndEdgeTargets() {
+        assertEquals(bit(1, 2) | bit(2, 1), AttackTables.knightAttacks(0));
+        assertEquals(bit(0, 1) | bit(1, 0) | bit(1, 1), AttackTables.kingAttacks(0));
+        assertEquals(bit(2, 6), AttackTables.pawnAttacks(ChessGame.TeamColor.WHITE, 15));
+        assertEquals(bit(5, 1), AttackTables.pawnAttacks(ChessGame.TeamColor.BLACK, 48));
+        assertEquals(0, AttackTables.pawnAttacks(ChessGame.TeamColor.WHITE, 60));
+    }
+
+    @Test
+    void leaperTablesMatchSteps() {
+        int[][] knight = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        int[][] king = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int square = 0; square < 64; square++) {
+            assertEquals(walk(square, 0, knight, false), AttackTables.knightAttacks(square), "square " + square);
+            assertEquals(walk(square, 0, king, false), AttackTables.kingAttacks(square), "square " + square);
+        }
+    }
+
+    @Test
+    void slidingAttacksStopAtTheFirstBlocker() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int trial = 0; trial < 2000; trial++) {
+            int square = random.nextInt(64);
+            long occupied = random.nextLong() & random.nextLong();
+            assertEquals(walk(square, occupied, ROOK_STEPS, true), AttackTables.rookAttacks(square, occupied));
+            assertEquals(walk(square, occupied, BISHOP_STEPS, true), AttackTables.bishopAttacks(square, occupied));
+            assertEquals(AttackTables.rookAttacks(square, occupied) | AttackTables.bishopAttacks(square, occupied),
+                    AttackTables.queenAttacks(square, occupied));
+        }
+    }
+
+    @Test
+    void betweenHoldsOnlyTheSquaresStrictlyInside() {
+        long b2ToG7 = bit(1, 1) | bit(2, 2) | bit(3, 3) | bit(4, 4) | bit(5, 5) | bit(6, 6);
+        assertEquals(b2ToG7, AttackTables.between(0, 63));
+        assertEquals(b2ToG7, AttackTables.between(63, 0));
+        assertEquals(bit(0, 1) | bit(0, 2), AttackTables.between(0, 3));
+        assertEquals(0, AttackTables.between(0, 1));
+        assertEquals(0, AttackTables.between(0, 17));
+        for (int from = 0; from < 64; from++) {
+            long aligned = 0;
+            for (int direction = 0; direction < 8; direction++) {
+                long ray = AttackTables.ray(direction, from);
+                aligned |= ray;
+                for (long targets = ray; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+//                    a slider on one square, blocked only by the other, crosses exactly the squares between
+                    long reach = AttackTables.rayAttacks(direction, from, 1L << to);
+                    assertEquals(reach & ~(1L << to), AttackTables.between(from, to));
+                }
+            }
+            for (long others = ~aligned & ~(1L << from); others != 0; others &= others - 1) {
+                assertEquals(0, AttackTables.between(from, Long.numberOfTrailingZeros(others)));
+            }
+        }
+    }
+}
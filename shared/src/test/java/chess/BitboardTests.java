@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardTests {
+
+    @Test
+    void startingBoardLayout() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        assertEquals(0x000000000000FF00L, board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(0x00FF000000000000L, board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        assertEquals(0x0000000000000081L, board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertEquals(0x0800000000000000L, board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertEquals(0x000000000000FFFFL, board.occupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(0xFFFF000000000000L, board.occupancy(ChessGame.TeamColor.BLACK));
+        assertEquals(0xFFFF00000000FFFFL, board.occupied());
+        assertEquals(4, board.kingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(60, board.kingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void squaresAreNumberedByRowThenColumn() {
+        ChessPiece knight = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessBoard board = new ChessBoard();
+                ChessPosition position = new ChessPosition(row, col);
+                board.addPiece(position, knight);
+
+                int square = (row - 1) * 8 + (col - 1);
+                assertEquals(1L << square, board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+                assertEquals(1L << square, board.occupied());
+                assertEquals(knight, board.pieceAt(square));
+                assertEquals(knight, board.getPiece(position));
+            }
+        }
+    }
+
+    @Test
+    void replacingAndRemovingKeepMasksInStep() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition d4 = new ChessPosition(4, 4);
+        board.addPiece(d4, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        board.addPiece(d4, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+
+        long bit = 1L << 27;
+        assertEquals(0, board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        assertEquals(0, board.occupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(bit, board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertEquals(bit, board.occupancy(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(d4, null);
+        assertNull(board.getPiece(d4));
+        assertEquals(0, board.occupied());
+        assertEquals(new ChessBoard(), board);
+        assertEquals(new ChessBoard().getZobristKey(), board.getZobristKey());
+    }
+
+    @Test
+    void kingSquareFollowsTheKing() {
+        ChessBoard board = new ChessBoard();
+        assertEquals(-1, board.kingSquare(ChessGame.TeamColor.WHITE));
+
+        ChessPiece king = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        board.addPiece(new ChessPosition(1, 5), king);
+        board.addPiece(new ChessPosition(1, 5), null);
+        board.addPiece(new ChessPosition(2, 6), king);
+        assertEquals(13, board.kingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(-1, board.kingSquare(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(new ChessPosition(2, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        assertEquals(-1, board.kingSquare(ChessGame.TeamColor.WHITE));
+    }
+}
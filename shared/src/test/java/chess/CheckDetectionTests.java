@@ -0,0 +1,125 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckDetectionTests {
+
+    private static void put(ChessBoard board, int row, int col, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        board.addPiece(new ChessPosition(row, col), new ChessPiece(color, type));
+    }
+
+//    kings on e1 and e8 plus one black attacker, optionally blocked by a white pawn
+    private static ChessGame withAttacker(ChessPiece.PieceType type, int row, int col, int blockRow, int blockCol) {
+        ChessBoard board = new ChessBoard();
+        put(board, 1, 5, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        put(board, 8, 5, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        put(board, row, col, ChessGame.TeamColor.BLACK, type);
+        if (blockRow > 0) {
+            put(board, blockRow, blockCol, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+
+//    the old definition: some enemy piece has a move onto the king's square
+    private static boolean attackedByScan(ChessGame game, ChessGame.TeamColor team) {
+        ChessBoard board = game.getBoard();
+        ChessPosition king = null;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == team && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    king = new ChessPosition(row, col);
+                }
+            }
+        }
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null || piece.getTeamColor() == team) { continue; }
+                for (ChessMove move : piece.pieceMoves(board, position)) {
+                    if (move.getEndPosition().equals(king)) { return true; }
+                }
+            }
+        }
+        return false;
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "ROOK, 1, 8, 0, 0, true",
+            "ROOK, 1, 8, 1, 6, false",
+            "KNIGHT, 2, 6, 0, 0, false",
+            "KNIGHT, 3, 6, 0, 0, true",
+            "PAWN, 2, 4, 0, 0, true",
+            "PAWN, 1, 4, 0, 0, false",
+            "BISHOP, 1, 1, 0, 0, false",
+            "QUEEN, 5, 1, 0, 0, true",
+            "QUEEN, 5, 1, 3, 3, false",
+    })
+    void findsEachKindOfAttacker(ChessPiece.PieceType type, int row, int col, int blockRow, int blockCol,
+                                 boolean check) {
+        ChessGame game = withAttacker(type, row, col, blockRow, blockCol);
+        assertEquals(check, game.isInCheck(ChessGame.TeamColor.WHITE));
+        assertEquals(check, attackedByScan(game, ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void blackPawnsAttackDownTheBoard() {
+        ChessBoard board = new ChessBoard();
+        put(board, 1, 5, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        put(board, 5, 4, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        put(board, 4, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(new ChessPosition(4, 3), null);
+        put(board, 6, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void noKingIsNeverInCheck() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        put(board, 1, 1, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        game.setBoard(board);
+        assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void agreesWithScanningEveryPiece() throws InvalidMoveException {
+        Random random = new Random(2);
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                    assertEquals(attackedByScan(game, team), game.isInCheck(team));
+                }
+                List<ChessMove> moves = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition position = new ChessPosition(row, col);
+                        ChessPiece piece = game.getBoard().getPiece(position);
+                        if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                            moves.addAll(game.validMoves(position));
+                        }
+                    }
+                }
+                if (moves.isEmpty()) { break; }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(3, 6, 1, 7));
+        game.makeMove(move(6, 6, 8, 7));
+    }
+
+    @Test
+    void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        assertTrue(game.isRepetition());
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(GameStatus.IN_PLAY, game.getStatus());
+
+        shuffleKnights(game);
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(GameStatus.THREEFOLD_REPETITION, game.getStatus());
+        assertTrue(game.getStatus().isDraw());
+
+        game.undoMove();
+        assertTrue(game.isRepetition());
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(GameStatus.IN_PLAY, game.getStatus());
+    }
+
+    @Test
+    void pawnMoveEndsRepetitionScan() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 5, 5, 5));
+        shuffleKnights(game);
+        assertTrue(game.isRepetition());
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    void historySurvivesCopyAndJson() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+
+        assertEquals(GameStatus.THREEFOLD_REPETITION, new ChessGame(game).getStatus());
+        Gson gson = new Gson();
+        assertEquals(GameStatus.THREEFOLD_REPETITION, gson.fromJson(gson.toJson(game), ChessGame.class).getStatus());
+    }
+
+    @Test
+    void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        assertEquals(GameStatus.IN_PLAY, game.getStatus());
+        game.makeMove(move(1, 1, 2, 1));
+        assertTrue(game.isFiftyMoveDraw());
+        assertEquals(GameStatus.FIFTY_MOVE_RULE, game.getStatus());
+    }
+
+    @Test
+    void checkmateOutranksFiftyMoveRule() {
+        ChessGame game = ChessGame.fromFen("R3k3/8/4K3/8/8/8/8/8 b - - 100 80");
+        assertEquals(GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'4k3/8/8/8/8/8/8/4K3 w - - 0 1', true",
+            "'4k3/8/8/8/8/8/8/2B1K3 w - - 0 1', true",
+            "'4k3/8/8/8/8/8/8/1N2K3 w - - 0 1', true",
+            "'2b1k3/8/8/8/8/8/8/2B1K3 w - - 0 1', false",
+            "'4kb2/8/8/8/8/8/8/2B1K3 w - - 0 1', true",
+            "'4k3/8/8/8/8/8/8/1NN1K3 w - - 0 1', false",
+            "'4k3/8/8/8/8/8/4P3/4K3 w - - 0 1', false",
+            "'4k3/8/8/8/8/8/8/R3K3 w - - 0 1', false",
+    })
+    void insufficientMaterial(String fen, boolean insufficient) {
+        ChessGame game = ChessGame.fromFen(fen);
+        assertEquals(insufficient, game.hasInsufficientMaterial());
+        assertEquals(insufficient, game.getStatus() == GameStatus.INSUFFICIENT_MATERIAL);
+    }
+}
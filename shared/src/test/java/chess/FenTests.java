@@ -0,0 +1,73 @@
+package chess;
+
+import chess.perft.ReferencePosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTests {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void referencePositionsRoundTrip(ReferencePosition position) {
+        assertEquals(position.getFen(), ChessGame.fromFen(position.getFen()).toFen());
+    }
+
+    @Test
+    void startPositionMatchesNewGame() {
+        ChessGame game = ChessGame.fromFen(START);
+        assertEquals(new ChessGame(), game);
+        assertEquals(new ChessGame().getZobristKey(), game.getZobristKey());
+        assertEquals(START, new ChessGame().toFen());
+    }
+
+    @Test
+    void movesUpdateEnPassantAndClocks() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(1, 7, 3, 6));
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 2 2", game.toFen());
+
+        game.undoMove();
+        assertEquals(1, game.getHalfmoveClock());
+        assertEquals(2, game.getFullmoveNumber());
+    }
+
+    @Test
+    void castlingRightsFollowMovedFlags() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        game.makeMove(move(1, 8, 2, 8));
+        game.makeMove(move(8, 5, 8, 6));
+        assertEquals("r4k1r/8/8/8/8/8/7R/R3K3 w Q - 2 2", game.toFen());
+    }
+
+    @Test
+    void clocksAreOptional() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 b - -");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 0 1", game.toFen());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0"})
+    void malformedRecordsAreRejected(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStatusTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    void startPositionIsInPlay() {
+        ChessGame game = new ChessGame();
+        assertEquals(GameStatus.IN_PLAY, game.getStatus());
+        assertEquals(GameStatus.IN_PLAY, game.getStatus(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void foolsMateIsCheckmate() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 6, 3, 6));
+        game.makeMove(move(7, 5, 5, 5));
+        game.makeMove(move(2, 7, 4, 7));
+        assertEquals(GameStatus.IN_PLAY, game.getStatus());
+        game.makeMove(move(8, 4, 4, 8));
+
+        assertEquals(GameStatus.CHECKMATE, game.getStatus());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+        assertEquals(GameStatus.IN_PLAY, game.getStatus(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void statusFollowsUndo() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        assertEquals(GameStatus.IN_PLAY, game.getStatus(ChessGame.TeamColor.BLACK));
+        game.makeMove(move(1, 1, 8, 1));
+        assertEquals(GameStatus.CHECK, game.getStatus());
+        game.undoMove();
+        assertEquals(GameStatus.IN_PLAY, game.getStatus(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void stalemateAndBoardEdits() {
+        ChessGame game = ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(GameStatus.STALEMATE, game.getStatus());
+        assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+
+//        editing the board directly changes its key, so the cached status is not reused
+        game.getBoard().addPiece(new ChessPosition(7, 6), null);
+        assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game.getStatus());
+    }
+}
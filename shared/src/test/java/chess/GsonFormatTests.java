@@ -0,0 +1,105 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GsonFormatTests {
+    private final Gson gson = new Gson();
+
+//    a board as Gson wrote it before the bitboards: squares[row - 1][col - 1], pieces or nulls
+    private static String oldBoardJson(String placement) {
+        ChessBoard board = ChessGame.fromFen(placement + " w - - 0 1").getBoard();
+        StringBuilder json = new StringBuilder("{\"squares\":[");
+        for (int row = 1; row <= 8; row++) {
+            json.append(row > 1 ? ",[" : "[");
+            for (int col = 1; col <= 8; col++) {
+                if (col > 1) { json.append(','); }
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                json.append(piece == null ? "null" : "{\"pieceColor\":\"" + piece.getTeamColor()
+                        + "\",\"type\":\"" + piece.getPieceType() + "\"}");
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    @Test
+    void loadsGamesStoredWithTheOldBoard() throws InvalidMoveException {
+        String placement = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR";
+        String json = "{\"board\":" + oldBoardJson(placement) + ",\"currentTurn\":\"BLACK\","
+                + "\"whiteKingMoved\":false,\"blackKingMoved\":false,\"whiteKingSideRookMoved\":false,"
+                + "\"whiteQueenSideRookMoved\":false,\"blackKingSideRookMoved\":false,"
+                + "\"blackQueenSideRookMoved\":false,\"lastMove\":{\"startPosition\":{\"row\":2,\"col\":5},"
+                + "\"endPosition\":{\"row\":4,\"col\":5}}}";
+
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        ChessGame expected = ChessGame.fromFen(placement + " b KQkq e3 0 1");
+        assertEquals(expected.getBoard(), game.getBoard());
+        assertEquals(expected.getZobristKey(), game.getZobristKey());
+        assertEquals(32, Long.bitCount(game.getBoard().occupied()));
+        assertEquals(20, game.validMoves(ChessGame.TeamColor.BLACK).size());
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        assertEquals(ChessPiece.PieceType.PAWN, game.getBoard().getPiece(new ChessPosition(5, 4)).getPieceType());
+    }
+
+    @Test
+    void boardRoundTripsThroughBitboards() {
+        ChessBoard board = ChessGame.fromFen("r3k2r/pp3ppp/2n5/3Pp3/8/5N2/PP3PPP/R3K2R w KQkq e6 0 12").getBoard();
+        String json = gson.toJson(board);
+        assertTrue(json.startsWith("{\"pieceBitboards\":["));
+        ChessBoard copy = gson.fromJson(json, ChessBoard.class);
+        assertEquals(board, copy);
+        assertEquals(board.getZobristKey(), copy.getZobristKey());
+        assertEquals(board.kingSquare(ChessGame.TeamColor.BLACK), copy.kingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void rejectsUnknownPieces() {
+        String json = "{\"squares\":[[{\"pieceColor\":\"GREEN\",\"type\":\"KING\"}]]}";
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson(json, ChessBoard.class));
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+    }
+
+    @Test
+    void storesOnlyTheHistoryInUse() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        assertEquals(4, json.getAsJsonArray("keyHistory").size());
+        assertFalse(json.has("keyHistoryCount"));
+        assertFalse(json.has("stateKey"));
+
+        shuffleKnights(game);
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertEquals(game.getZobristKey(), copy.getZobristKey());
+        assertEquals(GameStatus.THREEFOLD_REPETITION, copy.getStatus());
+    }
+
+    @Test
+    void readsPaddedHistoryWithItsCount() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        JsonArray padded = json.getAsJsonArray("keyHistory");
+        for (int i = padded.size(); i < 64; i++) {
+            padded.add(0L);
+        }
+        json.addProperty("keyHistoryCount", 8);
+
+        ChessGame copy = gson.fromJson(json, ChessGame.class);
+        assertEquals(GameStatus.THREEFOLD_REPETITION, copy.getStatus());
+        assertEquals(8, gson.toJsonTree(copy).getAsJsonObject().getAsJsonArray("keyHistory").size());
+    }
+}
@@ -0,0 +1,122 @@
+package chess;
+
+import chess.perft.ReferencePosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegalMoveCacheTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void squaresSplitTheGeneratedMoves(ReferencePosition position) {
+        SplittableRandom random = new SplittableRandom(position.ordinal());
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 60; ply++) {
+            game.generateMoves(moves);
+            Set<ChessMove> generated = moves.addTo(new HashSet<>());
+            Set<ChessMove> bySquare = new HashSet<>();
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = game.getBoard().pieceAt(square);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn()) { continue; }
+                ChessPosition from = ChessPosition.ofSquare(square);
+                Collection<ChessMove> pieceMoves = game.validMoves(from);
+                assertTrue(pieceMoves.stream().allMatch(m -> m.getStartPosition().equals(from)));
+                bySquare.addAll(pieceMoves);
+            }
+            assertEquals(generated, bySquare, game.toFen());
+            assertEquals(generated, new HashSet<>(game.validMoves(game.getTeamTurn())), game.toFen());
+            if (moves.isEmpty()) { break; }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Test
+    void setTeamTurnSwitchesTheMoves() {
+        ChessGame game = new ChessGame();
+        assertEquals(2, game.validMoves(new ChessPosition(2, 5)).size());
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        assertEquals(2, game.validMoves(new ChessPosition(7, 5)).size());
+        assertEquals(20, game.validMoves(ChessGame.TeamColor.BLACK).size());
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(move(2, 5, 4, 5)));
+        assertDoesNotThrow(() -> game.makeMove(move(7, 5, 5, 5)));
+    }
+
+    @Test
+    void setBoardAndBoardEditsReplaceTheMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertTrue(game.validMoves(new ChessPosition(1, 1)).isEmpty());
+
+        game.setBoard(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1").getBoard());
+        assertEquals(10, game.validMoves(new ChessPosition(1, 1)).size());
+
+        game.getBoard().addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.KNIGHT));
+        assertEquals(7, game.validMoves(new ChessPosition(1, 1)).size());
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(move(1, 1, 1, 3)));
+        game.makeMove(move(1, 1, 8, 1));
+        assertEquals(GameStatus.CHECK, game.getStatus());
+    }
+
+    @Test
+    void returnedMovesAreCopies() {
+        ChessGame game = new ChessGame();
+        game.validMoves(new ChessPosition(1, 7)).clear();
+        game.validMoves(ChessGame.TeamColor.WHITE).clear();
+        assertEquals(2, game.validMoves(new ChessPosition(1, 7)).size());
+        assertEquals(20, game.validMoves(ChessGame.TeamColor.WHITE).size());
+    }
+
+    @Test
+    void threadsCanReadOneGame() throws Exception {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        List<Set<ChessMove>> expected = new ArrayList<>();
+        for (int square = 0; square < 64; square++) {
+            Collection<ChessMove> moves = new ChessGame(game).validMoves(ChessPosition.ofSquare(square));
+            expected.add(moves == null ? null : new HashSet<>(moves));
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int reader = 0; reader < 8; reader++) {
+                results.add(readers.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (int square = 0; square < 64; square++) {
+                            Collection<ChessMove> moves = game.validMoves(ChessPosition.ofSquare(square));
+                            if (!Objects.equals(expected.get(square), moves == null ? null : new HashSet<>(moves))) {
+                                return false;
+                            }
+                        }
+                        if (game.getStatus() != GameStatus.IN_PLAY) { return false; }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegalMoveGeneratorTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+//    pieces written as letter and square, white in capitals: "Ke1", "ra8"
+    private static ChessGame game(ChessGame.TeamColor turn, String... pieces) {
+        ChessBoard board = new ChessBoard();
+        for (String piece : pieces) {
+            ChessGame.TeamColor color = Character.isUpperCase(piece.charAt(0))
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toUpperCase(piece.charAt(0))) {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'B' -> ChessPiece.PieceType.BISHOP;
+                case 'N' -> ChessPiece.PieceType.KNIGHT;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(new ChessPosition(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1),
+                    new ChessPiece(color, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    private static Set<ChessMove> movesFrom(ChessGame game, int row, int col) {
+        return new HashSet<>(game.validMoves(new ChessPosition(row, col)));
+    }
+
+    private static Collection<ChessMove> allMoves(ChessGame game) {
+        Collection<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moves.addAll(game.validMoves(new ChessPosition(row, col)));
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    void pinnedRookStaysOnThePin() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Ke1", "Re2", "re7", "ke8");
+        assertEquals(Set.of(move(2, 5, 3, 5), move(2, 5, 4, 5), move(2, 5, 5, 5), move(2, 5, 6, 5),
+                move(2, 5, 7, 5)), movesFrom(game, 2, 5));
+    }
+
+    @Test
+    void pinnedBishopSlidesAlongTheDiagonal() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Ke1", "Bc3", "ba5", "ke8");
+        assertEquals(Set.of(move(3, 3, 2, 4), move(3, 3, 4, 2), move(3, 3, 5, 1)), movesFrom(game, 3, 3));
+    }
+
+    @Test
+    void pinnedKnightCannotMove() {
+        assertEquals(Set.of(), movesFrom(game(ChessGame.TeamColor.WHITE, "Ke1", "Nd2", "ba5", "ke8"), 2, 4));
+        assertEquals(Set.of(), movesFrom(game(ChessGame.TeamColor.WHITE, "Ke1", "Nb1", "ra1", "ke8"), 1, 2));
+    }
+
+    @Test
+    void enPassantCannotUncoverARankAttack() throws InvalidMoveException {
+//        exd6 would take both pawns off the fifth rank, leaving the king open to the rook
+        ChessGame pinned = game(ChessGame.TeamColor.BLACK, "Ka5", "Pe5", "pd7", "rh5", "kh1");
+        pinned.makeMove(move(7, 4, 5, 4));
+        assertEquals(Set.of(move(5, 5, 6, 5)), movesFrom(pinned, 5, 5));
+
+        ChessGame free = game(ChessGame.TeamColor.BLACK, "Ka5", "Pe5", "pd7", "kh1");
+        free.makeMove(move(7, 4, 5, 4));
+        assertEquals(Set.of(move(5, 5, 6, 5), move(5, 5, 6, 4)), movesFrom(free, 5, 5));
+    }
+
+    @Test
+    void enPassantCanTakeTheCheckingPawn() throws InvalidMoveException {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Ke1", "Pd2", "pe4", "kc5");
+        game.makeMove(move(2, 4, 4, 4));
+        assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+        assertEquals(Set.of(move(4, 5, 3, 4)), movesFrom(game, 4, 5));
+    }
+
+    @Test
+    void singleCheckIsBlockedCapturedOrEscaped() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Ke1", "Bb3", "ra1", "ke8");
+        assertEquals(Set.of(move(3, 2, 1, 4), move(1, 5, 2, 4), move(1, 5, 2, 5), move(1, 5, 2, 6)),
+                new HashSet<>(allMoves(game)));
+    }
+
+    @Test
+    void doubleCheckOnlyAllowsKingMoves() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Ke1", "Bb3", "ra1", "nf3", "ke8");
+        Collection<ChessMove> moves = allMoves(game);
+        assertFalse(moves.isEmpty());
+        assertTrue(moves.stream().allMatch(m -> m.getStartPosition().equals(new ChessPosition(1, 5))));
+    }
+
+    @Test
+    void kingCannotStepAlongTheCheckingRay() {
+        Set<ChessMove> moves = movesFrom(game(ChessGame.TeamColor.WHITE, "Ke1", "ra1", "ke8"), 1, 5);
+        assertFalse(moves.contains(move(1, 5, 1, 6)));
+        assertTrue(moves.contains(move(1, 5, 2, 5)));
+    }
+}
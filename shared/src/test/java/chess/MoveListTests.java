@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveListTests {
+
+    @Test
+    void encodingRoundTrips() {
+        int move = MoveList.encode(52, 61, ChessPiece.PieceType.KNIGHT, MoveList.CAPTURE);
+        assertEquals(52, MoveList.from(move));
+        assertEquals(61, MoveList.to(move));
+        assertEquals(ChessPiece.PieceType.KNIGHT, MoveList.promotion(move));
+        assertTrue(MoveList.hasFlag(move, MoveList.CAPTURE));
+        assertFalse(MoveList.hasFlag(move, MoveList.EN_PASSANT));
+        assertEquals(new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 6), ChessPiece.PieceType.KNIGHT),
+                MoveList.toChessMove(move));
+    }
+
+    @Test
+    void generatedMovesMatchValidMoves() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveList moves = new MoveList(4);
+        game.generateMoves(moves);
+
+        assertEquals(48, moves.size());
+        assertEquals(new HashSet<>(game.validMoves(ChessGame.TeamColor.WHITE)), new HashSet<>(moves.toChessMoves()));
+        int castles = 0;
+        int captures = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (MoveList.hasFlag(moves.get(i), MoveList.CASTLE)) { castles++; }
+            if (MoveList.hasFlag(moves.get(i), MoveList.CAPTURE)) { captures++; }
+        }
+        assertEquals(2, castles);
+        assertEquals(8, captures);
+    }
+
+    @Test
+    void encodedMovesPlayAndUndo() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        long key = game.getZobristKey();
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+            game.undoMove();
+        }
+        assertEquals(new ChessGame(), game);
+        assertEquals(key, game.getZobristKey());
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+import chess.perft.ReferencePosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedBoardTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    void startPositionMatchesChessBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        PackedBoard packed = PackedBoard.startPosition();
+        assertEquals(board.toFen(), packed.toString());
+        assertEquals(board, packed.toChessBoard());
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                packed.getPiece(new ChessPosition(8, 4)));
+        assertNull(packed.pieceAt(27));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void applyingMovesTracksTheGame(ReferencePosition position) {
+        SplittableRandom random = new SplittableRandom(position.ordinal());
+        for (int playout = 0; playout < 20; playout++) {
+            ChessGame game = ChessGame.fromFen(position.getFen());
+            PackedBoard packed = PackedBoard.of(game.getBoard());
+            MoveList moves = new MoveList();
+            for (int ply = 0; ply < 80; ply++) {
+                game.generateMoves(moves);
+                if (moves.size() == 0) { break; }
+                int move = moves.get(random.nextInt(moves.size()));
+                packed = packed.apply(move);
+                game.doMove(move);
+                assertEquals(PackedBoard.of(game.getBoard()), packed, game.toFen());
+            }
+        }
+    }
+
+    @Test
+    void earlierVersionsAreUnchanged() {
+        PackedBoard start = PackedBoard.startPosition();
+        PackedBoard afterE4 = start.apply(move(2, 5, 4, 5));
+        PackedBoard afterE5 = afterE4.apply(move(7, 5, 5, 5));
+
+        assertNotNull(start.getPiece(new ChessPosition(2, 5)));
+        assertNull(start.getPiece(new ChessPosition(4, 5)));
+        assertNull(afterE4.getPiece(new ChessPosition(5, 5)));
+        assertEquals(PackedBoard.startPosition(), start);
+        assertNotEquals(start, afterE5);
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR", afterE5.toString());
+    }
+
+    @Test
+    void castlesCapturesEnPassantAndPromotes() {
+        PackedBoard board = PackedBoard.of(ChessGame.fromFen("r3k3/1P6/8/3pP3/8/8/8/4K2R w K d6 0 1").getBoard());
+        assertEquals("r3k3/1P6/8/3pP3/8/8/8/5RK1", board.apply(move(1, 5, 1, 7)).toString());
+        assertEquals("r3k3/1P6/3P4/8/8/8/8/4K2R", board.apply(move(5, 5, 6, 4)).toString());
+        assertEquals("N3k3/8/8/3pP3/8/8/8/4K2R", board.apply(new ChessMove(new ChessPosition(7, 2),
+                new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT)).toString());
+        assertThrows(IllegalArgumentException.class, () -> board.apply(move(3, 3, 4, 3)));
+    }
+
+    @Test
+    void snapshotsCanBeSharedAcrossThreads() throws Exception {
+        ChessGame game = new ChessGame();
+        List<PackedBoard> history = new ArrayList<>();
+        history.add(PackedBoard.of(game.getBoard()));
+        for (ChessMove move : List.of(move(2, 4, 4, 4), move(7, 4, 5, 4), move(1, 3, 4, 6))) {
+            history.add(history.get(history.size() - 1).apply(move));
+            game.makeMove(move);
+        }
+
+        String fen = CompletableFuture.supplyAsync(() -> history.get(3).toString()).get();
+        assertEquals(game.getBoard().toFen(), fen);
+        assertEquals(game.getBoard(), history.get(3).toChessBoard());
+        assertEquals(PackedBoard.startPosition(), history.get(0));
+    }
+
+    @Test
+    void withReplacesOneSquare() {
+        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        PackedBoard board = PackedBoard.EMPTY.with(63, rook).with(0, rook);
+        assertEquals(rook, board.pieceAt(63));
+        assertEquals("7R/8/8/8/8/8/8/R7", board.toString());
+        assertEquals(PackedBoard.EMPTY.with(63, rook), board.with(0, null));
+    }
+}
@@ -0,0 +1,77 @@
+package chess;
+
+import chess.perft.ReferencePosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionCodecTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void referencePositionsRoundTrip(ReferencePosition position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        byte[] bytes = PositionCodec.encode(game);
+        assertTrue(bytes.length <= 32);
+
+        ChessGame decoded = PositionCodec.decode(bytes);
+        assertEquals(position.getFen(), decoded.toFen());
+        assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        assertEquals(game.validMoves(game.getTeamTurn()), decoded.validMoves(decoded.getTeamTurn()));
+    }
+
+    @Test
+    void sizeFollowsPieceCount() {
+        assertEquals(PositionCodec.MAX_LENGTH, PositionCodec.encode(new ChessGame()).length);
+        assertEquals(14, PositionCodec.encode(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).length);
+        assertEquals(15, PositionCodec.encode(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")).length);
+    }
+
+    @Test
+    void keepsEnPassantAndClocks() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 1, 6, 1));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 4, 5, 4));
+
+        ChessGame decoded = PositionCodec.decode(PositionCodec.encode(game));
+        assertEquals("rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3", decoded.toFen());
+        decoded.makeMove(move(5, 5, 6, 4));
+        assertNull(decoded.getBoard().getPiece(new ChessPosition(5, 4)));
+    }
+
+    @Test
+    void keepsMovedFlagsExactly() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        game.makeMove(move(1, 5, 1, 6));
+        game.makeMove(move(8, 8, 7, 8));
+        game.makeMove(move(1, 6, 1, 5));
+
+        ChessGame decoded = PositionCodec.decode(PositionCodec.encode(game));
+        assertEquals(game.toFen(), decoded.toFen());
+        assertFalse(decoded.canCastleKingSide(ChessGame.TeamColor.WHITE));
+        assertFalse(decoded.canCastleKingSide(ChessGame.TeamColor.BLACK));
+        assertTrue(decoded.canCastleQueenSide(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void rejectsMalformedBytes() {
+        byte[] start = PositionCodec.encode(new ChessGame());
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(new byte[4]));
+        assertThrows(IllegalArgumentException.class,
+                () -> PositionCodec.decode(Arrays.copyOf(start, start.length - 1)));
+
+        byte[] badPiece = start.clone();
+        badPiece[8] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(badPiece));
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedInstanceTests {
+
+    @Test
+    void positionsAreSharedOnTheBoard() {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition shared = ChessPosition.of(row, col);
+                assertSame(shared, ChessPosition.of(row, col));
+                assertSame(shared, ChessPosition.ofSquare((row - 1) * 8 + (col - 1)));
+                assertEquals(new ChessPosition(row, col), shared);
+                assertEquals(new ChessPosition(row, col).hashCode(), shared.hashCode());
+            }
+        }
+    }
+
+    @Test
+    void offBoardPositionsAreStillCreated() {
+        ChessPosition offBoard = ChessPosition.of(0, 9);
+        assertEquals(0, offBoard.getRow());
+        assertEquals(9, offBoard.getColumn());
+        assertEquals(new ChessPosition(0, 9), offBoard);
+    }
+
+    @Test
+    void piecesAreSharedPerColorAndType() {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                ChessPiece shared = ChessPiece.of(color, type);
+                assertSame(shared, ChessPiece.of(color, type));
+                assertEquals(new ChessPiece(color, type), shared);
+                assertEquals(color, shared.getTeamColor());
+                assertEquals(type, shared.getPieceType());
+            }
+        }
+    }
+
+    @Test
+    void movesAreSharedWithTheirPromotions() {
+        ChessPosition g7 = ChessPosition.of(7, 7);
+        ChessPosition h8 = ChessPosition.of(8, 8);
+        ChessMove plain = ChessMove.of(g7, h8, null);
+        ChessMove queen = ChessMove.of(g7, h8, ChessPiece.PieceType.QUEEN);
+
+        assertSame(plain, ChessMove.of(new ChessPosition(7, 7), new ChessPosition(8, 8), null));
+        assertSame(queen, ChessMove.of(g7, h8, ChessPiece.PieceType.QUEEN));
+        assertNotEquals(plain, queen);
+        assertEquals(new ChessMove(g7, h8, ChessPiece.PieceType.QUEEN), queen);
+        assertSame(g7, queen.getStartPosition());
+
+//        no pawn promotes going from a1 to h8, but the move can still be asked for
+        ChessMove odd = ChessMove.of(ChessPosition.of(1, 1), h8, ChessPiece.PieceType.ROOK);
+        assertEquals(ChessPiece.PieceType.ROOK, odd.getPromotionPiece());
+    }
+
+    @Test
+    void generatedMovesUseTheSharedInstances() {
+        ChessGame game = new ChessGame();
+        for (int square = 0; square < 16; square++) {
+            for (ChessMove move : game.validMoves(ChessPosition.ofSquare(square))) {
+                ChessPosition start = move.getStartPosition();
+                ChessPosition end = move.getEndPosition();
+                assertSame(ChessPosition.of(start.getRow(), start.getColumn()), start);
+                assertSame(ChessPosition.of(end.getRow(), end.getColumn()), end);
+                assertSame(ChessMove.of(start, end, null), move);
+            }
+        }
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                game.getBoard().getPiece(ChessPosition.of(1, 5)));
+    }
+}
@@ -0,0 +1,126 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoMoveTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    private static void playAll(ChessGame game, ChessMove... moves) throws InvalidMoveException {
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    void undoRestoresCapture() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        playAll(game, move(2, 5, 4, 5), move(7, 4, 5, 4));
+        ChessBoard before = new ChessBoard(game.getBoard());
+        long key = game.getZobristKey();
+
+        game.doMove(move(4, 5, 5, 4));
+        game.undoMove();
+
+        assertEquals(before, game.getBoard());
+        assertEquals(key, game.getZobristKey());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void undoRestoresCastlingRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        playAll(game, move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6), move(8, 7, 6, 6),
+                move(1, 6, 4, 3), move(8, 6, 5, 3));
+        ChessBoard before = new ChessBoard(game.getBoard());
+
+        ChessMove castle = move(1, 5, 1, 7);
+        assertTrue(game.validMoves(castle.getStartPosition()).contains(castle));
+        game.doMove(castle);
+        assertFalse(game.canCastleKingSide(ChessGame.TeamColor.WHITE));
+        game.undoMove();
+
+        assertEquals(before, game.getBoard());
+        assertTrue(game.canCastleKingSide(ChessGame.TeamColor.WHITE));
+        assertTrue(game.validMoves(castle.getStartPosition()).contains(castle));
+    }
+
+    @Test
+    void undoRestoresEnPassant() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        playAll(game, move(2, 5, 4, 5), move(7, 1, 6, 1), move(4, 5, 5, 5), move(7, 4, 5, 4));
+        ChessMove enPassant = move(5, 5, 6, 4);
+        ChessBoard before = new ChessBoard(game.getBoard());
+
+        game.doMove(enPassant);
+        assertNull(game.getBoard().getPiece(new ChessPosition(5, 4)));
+        game.undoMove();
+
+        assertEquals(before, game.getBoard());
+        assertTrue(game.validMoves(enPassant.getStartPosition()).contains(enPassant));
+    }
+
+    @Test
+    void undoRestoresPromotedPawn() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+        ChessBoard before = new ChessBoard(board);
+
+        game.doMove(new ChessMove(new ChessPosition(7, 7), new ChessPosition(8, 8), ChessPiece.PieceType.KNIGHT));
+        game.undoMove();
+
+        assertEquals(before, game.getBoard());
+    }
+
+    @Test
+    void undoRestoresRightsLostToRookMovesAndCaptures() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (int col : new int[]{1, 8}) {
+            board.addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+            board.addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        }
+        board.addPiece(new ChessPosition(2, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        ChessBoard before = new ChessBoard(board);
+        long key = game.getZobristKey();
+
+//        bishop takes the h1 rook: white loses the king side, black keeps both
+        game.doMove(move(2, 7, 1, 8));
+        assertFalse(game.canCastleKingSide(ChessGame.TeamColor.WHITE));
+        assertTrue(game.canCastleQueenSide(ChessGame.TeamColor.WHITE));
+        game.doMove(move(1, 1, 1, 2));
+        assertFalse(game.canCastleQueenSide(ChessGame.TeamColor.WHITE));
+        game.doMove(move(8, 5, 8, 6));
+        assertFalse(game.canCastleKingSide(ChessGame.TeamColor.BLACK));
+        assertFalse(game.canCastleQueenSide(ChessGame.TeamColor.BLACK));
+
+        game.undoMove();
+        assertTrue(game.canCastleKingSide(ChessGame.TeamColor.BLACK));
+        assertTrue(game.canCastleQueenSide(ChessGame.TeamColor.BLACK));
+        game.undoMove();
+        assertTrue(game.canCastleQueenSide(ChessGame.TeamColor.WHITE));
+        game.undoMove();
+        assertTrue(game.canCastleKingSide(ChessGame.TeamColor.WHITE));
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(key, game.getZobristKey());
+    }
+
+    @Test
+    void undoWithoutMoveFails() {
+        assertThrows(IllegalStateException.class, () -> new ChessGame().undoMove());
+    }
+}
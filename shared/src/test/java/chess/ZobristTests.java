@@ -0,0 +1,165 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    void transpositionsShareKey() throws InvalidMoveException {
+        ChessGame first = new ChessGame();
+        first.makeMove(move(1, 7, 3, 6));
+        first.makeMove(move(8, 7, 6, 6));
+        first.makeMove(move(1, 2, 3, 3));
+
+        ChessGame second = new ChessGame();
+        second.makeMove(move(1, 2, 3, 3));
+        second.makeMove(move(8, 7, 6, 6));
+        second.makeMove(move(1, 7, 3, 6));
+
+        assertEquals(first.getZobristKey(), second.getZobristKey());
+    }
+
+    @Test
+    void incrementalKeyMatchesFreshBoard() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 5, 5, 4));
+
+        ChessBoard fresh = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null) {
+                    fresh.addPiece(position, piece);
+                }
+            }
+        }
+        assertEquals(fresh.getZobristKey(), game.getBoard().getZobristKey());
+    }
+
+    @Test
+    void sideToMoveChangesKey() {
+        ChessGame game = new ChessGame();
+        long whiteToMove = game.getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(whiteToMove, game.getZobristKey());
+    }
+
+    @Test
+    void lostCastlingRightChangesKey() throws InvalidMoveException {
+        ChessGame kingMoved = new ChessGame();
+        kingMoved.makeMove(move(2, 5, 4, 5));
+        kingMoved.makeMove(move(7, 5, 5, 5));
+        kingMoved.makeMove(move(1, 5, 2, 5));
+        kingMoved.makeMove(move(8, 5, 7, 5));
+        kingMoved.makeMove(move(2, 5, 1, 5));
+        kingMoved.makeMove(move(7, 5, 8, 5));
+
+        ChessGame untouched = new ChessGame();
+        untouched.makeMove(move(2, 5, 4, 5));
+        untouched.makeMove(move(7, 5, 5, 5));
+
+        assertEquals(untouched.getBoard(), kingMoved.getBoard());
+        assertNotEquals(untouched.getZobristKey(), kingMoved.getZobristKey());
+    }
+
+//    kings on e1 and e8 with all four rooks at home, so every castling right is still open
+    private static ChessGame castlingPosition() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (int col : new int[]{1, 8}) {
+            board.addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+            board.addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+
+    @Test
+    void enPassantRightIsPartOfTheKey() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 2, 4, 2));
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 2, 5, 2));
+        game.makeMove(move(7, 3, 5, 3));
+
+//        the same placement with no previous move, so b5 cannot take c5 en passant
+        ChessGame same = new ChessGame();
+        same.setBoard(new ChessBoard(game.getBoard()));
+        assertNotEquals(same.getZobristKey(), game.getZobristKey());
+
+        game.makeMove(move(1, 7, 3, 6));
+        same.makeMove(move(1, 7, 3, 6));
+        assertEquals(same.getZobristKey(), game.getZobristKey());
+    }
+
+    @Test
+    void losingCastlingRightsByDifferentRoutesTransposes() throws InvalidMoveException {
+        ChessGame kingsStep = castlingPosition();
+        long start = kingsStep.getZobristKey();
+        kingsStep.makeMove(move(1, 5, 1, 6));
+        kingsStep.makeMove(move(8, 5, 8, 6));
+        kingsStep.makeMove(move(1, 6, 1, 5));
+        kingsStep.makeMove(move(8, 6, 8, 5));
+
+        ChessGame kingsStepOtherWay = castlingPosition();
+        kingsStepOtherWay.makeMove(move(1, 5, 1, 4));
+        kingsStepOtherWay.makeMove(move(8, 5, 8, 4));
+        kingsStepOtherWay.makeMove(move(1, 4, 1, 5));
+        kingsStepOtherWay.makeMove(move(8, 4, 8, 5));
+
+        assertEquals(kingsStep.getBoard(), castlingPosition().getBoard());
+        assertEquals(kingsStep.getZobristKey(), kingsStepOtherWay.getZobristKey());
+        assertNotEquals(start, kingsStep.getZobristKey());
+    }
+
+    private static List<ChessMove> legalMoves(ChessGame game) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moves.addAll(game.validMoves(new ChessPosition(row, col)));
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    void doAndUndoRestoreTheKey() throws InvalidMoveException {
+        ChessGame game = castlingPosition();
+        game.getBoard().addPiece(new ChessPosition(5, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        game.getBoard().addPiece(new ChessPosition(7, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        game.getBoard().addPiece(new ChessPosition(7, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+//        d7-d5 opens en passant; then castling, captures and promotions are all among white's replies
+        game.makeMove(move(7, 4, 5, 4));
+
+        long rootKey = game.getZobristKey();
+        for (ChessMove first : legalMoves(game)) {
+            game.doMove(first);
+            long childKey = game.getZobristKey();
+            for (ChessMove second : legalMoves(game)) {
+                game.doMove(second);
+                game.undoMove();
+                assertEquals(childKey, game.getZobristKey(), first + " " + second);
+            }
+            game.undoMove();
+            assertEquals(rootKey, game.getZobristKey(), first.toString());
+        }
+    }
+}
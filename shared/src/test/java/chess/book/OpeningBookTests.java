@@ -0,0 +1,223 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.notation.UciCodec;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTests {
+//    the real Random64 table isn't needed to test the format; any fixed table will do
+    private static final PolyglotKeys KEYS;
+
+    static {
+        long[] random = new long[PolyglotKeys.KEY_COUNT];
+        SplittableRandom generator = new SplittableRandom(42);
+        for (int i = 0; i < random.length; i++) {
+            random[i] = generator.nextLong();
+        }
+        KEYS = new PolyglotKeys(random);
+    }
+
+    @TempDir
+    Path directory;
+
+    private record Entry(long key, int move, int weight) {
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    private static int polyglotMove(int startRow, int startCol, int endRow, int endCol) {
+        return ((startRow - 1) * 8 + startCol - 1) << 6 | ((endRow - 1) * 8 + endCol - 1);
+    }
+
+    private Path writeBook(List<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::key, Long::compareUnsigned));
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.size() * 16);
+        for (Entry entry : sorted) {
+            buffer.putLong(entry.key()).putShort((short) entry.move()).putShort((short) entry.weight()).putInt(0);
+        }
+        Path file = directory.resolve("book.bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    @Test
+    void findsWeightedMoves() throws IOException {
+        ChessGame start = new ChessGame();
+        long key = KEYS.hash(start);
+        List<Entry> entries = new ArrayList<>();
+        entries.add(new Entry(key, polyglotMove(2, 5, 4, 5), 30));
+        entries.add(new Entry(key, polyglotMove(2, 4, 4, 4), 10));
+        for (long other = 1; other < 200; other++) {
+            entries.add(new Entry(key + other * 0x9E3779B97F4A7C15L, polyglotMove(2, 1, 3, 1), 1));
+        }
+        OpeningBook book = OpeningBook.open(writeBook(entries), KEYS);
+
+        assertEquals(201, book.size());
+        assertEquals(List.of(new BookMove(move(2, 5, 4, 5), 30), new BookMove(move(2, 4, 4, 4), 10)),
+                book.moves(start));
+        assertEquals(move(2, 5, 4, 5), book.bestMove(start));
+        SplittableRandom random = new SplittableRandom(7);
+        int kingPawn = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (book.randomMove(start, random).equals(move(2, 5, 4, 5))) { kingPawn++; }
+        }
+        assertTrue(kingPawn > 650 && kingPawn < 850, "picked e4 " + kingPawn + " times");
+    }
+
+    @Test
+    void missingPositionAndIllegalEntries() throws IOException {
+        ChessGame start = new ChessGame();
+        OpeningBook book = OpeningBook.open(writeBook(List.of(
+                new Entry(KEYS.hash(start), polyglotMove(1, 5, 3, 5), 5))), KEYS);
+        assertEquals(List.of(), book.moves(start));
+        assertNull(book.bestMove(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+    }
+
+    @Test
+    void castlingIsWrittenAsKingTakesRook() throws IOException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        OpeningBook book = OpeningBook.open(writeBook(List.of(
+                new Entry(KEYS.hash(game), polyglotMove(1, 5, 1, 8), 2),
+                new Entry(KEYS.hash(game), polyglotMove(1, 5, 1, 1), 1))), KEYS);
+        assertEquals(List.of(new BookMove(move(1, 5, 1, 7), 2), new BookMove(move(1, 5, 1, 3), 1)),
+                book.moves(game));
+    }
+
+    @Test
+    void enPassantFileOnlyCountsWhenCapturable() throws InvalidMoveException {
+        ChessGame pushed = new ChessGame();
+        pushed.makeMove(move(2, 5, 4, 5));
+        assertEquals(KEYS.hash(ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")),
+                KEYS.hash(pushed));
+
+        ChessGame capturable = ChessGame.fromFen("4k3/8/8/8/3p4/8/4P3/4K3 w - - 0 1");
+        capturable.makeMove(move(2, 5, 4, 5));
+        assertNotEquals(KEYS.hash(ChessGame.fromFen("4k3/8/8/8/3pP3/8/8/4K3 b - - 0 1")), KEYS.hash(capturable));
+    }
+
+    @Test
+    void loadsKeyTableText() throws IOException {
+        StringJoiner text = new StringJoiner(",\n");
+        long[] random = new long[PolyglotKeys.KEY_COUNT];
+        for (int i = 0; i < random.length; i++) {
+            random[i] = -i * 0x9E3779B97F4A7C15L;
+            text.add(String.format("0x%016X", random[i]));
+        }
+        PolyglotKeys loaded = PolyglotKeys.load(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+        ChessGame game = new ChessGame();
+        assertEquals(new PolyglotKeys(random).hash(game), loaded.hash(game));
+        assertThrows(IllegalArgumentException.class,
+                () -> PolyglotKeys.load(new ByteArrayInputStream("0x1 0x2".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path file = directory.resolve("broken.bin");
+        Files.write(file, new byte[20]);
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.open(file, KEYS));
+    }
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String uci : moves) {
+            game.makeMove(UciCodec.parse(uci));
+        }
+        return game;
+    }
+
+//    the key worked out square by square from the layout in PolyglotKeys' description
+    private static long layoutKey(long[] random, ChessGame game, String castling, int enPassantFile) {
+        long key = 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece == null) { continue; }
+                int kind = switch (piece.getPieceType()) {
+                    case PAWN -> 0;
+                    case KNIGHT -> 1;
+                    case BISHOP -> 2;
+                    case ROOK -> 3;
+                    case QUEEN -> 4;
+                    case KING -> 5;
+                };
+                int white = piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 1 : 0;
+                key ^= random[64 * (2 * kind + white) + 8 * (row - 1) + (col - 1)];
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            if (castling.indexOf("KQkq".charAt(i)) >= 0) { key ^= random[768 + i]; }
+        }
+        if (enPassantFile >= 0) { key ^= random[772 + enPassantFile]; }
+        if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) { key ^= random[780]; }
+        return key;
+    }
+
+//    the published positions below, against a table where any misplaced key shows
+    @Test
+    void keysFollowThePolyglotLayout() throws InvalidMoveException {
+        long[] random = new long[PolyglotKeys.KEY_COUNT];
+        SplittableRandom generator = new SplittableRandom(5);
+        for (int i = 0; i < random.length; i++) {
+            random[i] = generator.nextLong();
+        }
+        PolyglotKeys keys = new PolyglotKeys(random);
+
+        String[][] lines = {{}, {"e2e4"}, {"e2e4", "d7d5"}, {"e2e4", "d7d5", "e4e5"},
+                {"e2e4", "d7d5", "e4e5", "f7f5"}, {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2"},
+                {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"}, {"a2a4", "b7b5", "h2h4", "b5b4", "c2c4"},
+                {"a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3"}};
+        String[] castling = {"KQkq", "KQkq", "KQkq", "KQkq", "KQkq", "kq", "", "KQkq", "Kkq"};
+        int[] enPassantFile = {-1, -1, -1, -1, 5, -1, -1, 2, -1};
+        for (int i = 0; i < lines.length; i++) {
+            ChessGame game = play(lines[i]);
+            assertEquals(layoutKey(random, game, castling[i], enPassantFile[i]), keys.hash(game),
+                    String.join(" ", lines[i]));
+        }
+    }
+
+//    the keys from the Polyglot format description; needs the Random64 table itself,
+//    so it only runs when one is on the classpath or named by chess.polyglot.keys
+    @Test
+    void standardTableMatchesPublishedKeys() throws InvalidMoveException {
+        PolyglotKeys standard;
+        try {
+            standard = PolyglotKeys.standard();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(PolyglotKeys.TABLE_PROPERTY));
+            Assumptions.abort("Polyglot Random64 table not on the classpath");
+            return;
+        }
+        assertEquals(0x463b96181691fc9cL, standard.hash(new ChessGame()));
+        assertEquals(0x823c9b50fd114196L, standard.hash(play("e2e4")));
+        assertEquals(0x0756b94461c50fb0L, standard.hash(play("e2e4", "d7d5")));
+        assertEquals(0x662fafb965db29d4L, standard.hash(play("e2e4", "d7d5", "e4e5")));
+        assertEquals(0x22a48b5a8e47ff78L, standard.hash(play("e2e4", "d7d5", "e4e5", "f7f5")));
+        assertEquals(0x652a607ca3f242c1L, standard.hash(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2")));
+        assertEquals(0x00fdd303c946bdd9L, standard.hash(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7")));
+        assertEquals(0x3c8123ea7b067637L, standard.hash(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4")));
+        assertEquals(0x5c3f9b829b279560L, standard.hash(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3")));
+    }
+}
@@ -0,0 +1,70 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import chess.perft.ReferencePosition;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTests {
+
+    private static void assertScoresMatchFreshBoard(ChessGame game) {
+        ChessBoard fresh = ChessGame.fromFen(game.toFen()).getBoard();
+        ChessBoard board = game.getBoard();
+        assertEquals(fresh.midgameScore(), board.midgameScore(), game.toFen());
+        assertEquals(fresh.endgameScore(), board.endgameScore(), game.toFen());
+        assertEquals(fresh.phase(), board.phase(), game.toFen());
+    }
+
+    @Test
+    void startingPositionIsBalanced() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, game.getBoard().midgameScore());
+        assertEquals(0, game.getBoard().endgameScore());
+        assertEquals(ChessBoard.TOTAL_PHASE, game.getBoard().phase());
+        assertEquals(0, Evaluator.evaluate(game));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ReferencePosition.class, names = {"KIWIPETE", "POSITION_3", "POSITION_4", "POSITION_5"})
+    void incrementalScoresMatchFreshBoard(ReferencePosition position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        MoveList first = new MoveList();
+        MoveList second = new MoveList();
+        game.generateMoves(first);
+        for (int i = 0; i < first.size(); i++) {
+            game.doMove(first.get(i));
+            assertScoresMatchFreshBoard(game);
+            game.generateMoves(second);
+            for (int j = 0; j < second.size(); j++) {
+                game.doMove(second.get(j));
+                assertScoresMatchFreshBoard(game);
+                game.undoMove();
+            }
+            game.undoMove();
+        }
+        assertScoresMatchFreshBoard(game);
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        ChessGame white = ChessGame.fromFen("4k3/pp6/8/8/3N4/8/5PPP/4K2R w K - 0 1");
+        ChessGame black = ChessGame.fromFen("4k2r/5ppp/8/3n4/8/8/PP6/4K3 b k - 0 1");
+        assertEquals(Evaluator.evaluate(white), Evaluator.evaluate(black));
+        assertTrue(Evaluator.evaluate(white) > 0);
+    }
+
+    @Test
+    void scoresSurviveJsonRoundTrip() {
+        Gson gson = new Gson();
+        ChessGame game = ChessGame.fromFen(ReferencePosition.KIWIPETE.getFen());
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertScoresMatchFreshBoard(copy);
+        assertEquals(Evaluator.evaluate(game), Evaluator.evaluate(copy));
+    }
+}
@@ -0,0 +1,73 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.perft.ReferencePosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovePickerTests {
+
+    private static List<Integer> pickAll(MovePicker picker) {
+        List<Integer> picked = new ArrayList<>();
+        for (int move = picker.next(); move != 0; move = picker.next()) {
+            picked.add(move);
+        }
+        return picked;
+    }
+
+    private static Set<Integer> legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        Set<Integer> legal = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            legal.add(moves.get(i));
+        }
+        return legal;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void yieldsEveryLegalMoveOnce(ReferencePosition position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        Set<Integer> legal = legalMoves(game);
+        int someMove = legal.iterator().next();
+        List<Integer> picked = pickAll(new MovePicker().reset(game, someMove, someMove, 0, new int[64][64], 0));
+
+        assertEquals(legal.size(), picked.size());
+        assertEquals(legal, new HashSet<>(picked));
+        assertEquals(someMove, picked.get(0));
+    }
+
+    @Test
+    void ordersStages() {
+//        white can win the queen with a pawn, or lose a rook for a pawn
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p1q2/4P3/8/3R4/4K3 w - - 0 1");
+        int hashMove = MoveList.encode(11, 19, null, 0);
+        int killer = MoveList.encode(4, 3, null, 0);
+        int[][] history = new int[64][64];
+        history[4][12] = 100;
+        List<Integer> picked = pickAll(new MovePicker().reset(game, hashMove, killer, 0, history, 0));
+
+        assertEquals(hashMove, picked.get(0));
+        assertEquals(MoveList.encode(28, 37, null, MoveList.CAPTURE), picked.get(1));
+        assertEquals(MoveList.encode(28, 35, null, MoveList.CAPTURE), picked.get(2));
+        assertEquals(killer, picked.get(3));
+        assertEquals(MoveList.encode(4, 12, null, 0), picked.get(4));
+        assertEquals(MoveList.encode(11, 35, null, MoveList.CAPTURE), picked.get(picked.size() - 1));
+    }
+
+    @Test
+    void quiescenceSkipsQuietAndLosingMoves() {
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p4/8/8/3R4/4K3 w - - 0 1");
+        assertEquals(List.of(), pickAll(new MovePicker().resetTactical(game)));
+    }
+}
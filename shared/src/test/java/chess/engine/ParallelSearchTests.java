@@ -0,0 +1,39 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTests {
+
+    @Test
+    void helpersAgreeOnMate() {
+        try (ParallelSearch search = new ParallelSearch(4, 8)) {
+            ParallelSearchResult result = search.search(ChessGame.fromFen("2k5/8/8/8/8/8/R7/1R5K w - - 0 1"), 6, 5_000);
+            assertEquals(Search.MATE - 3, result.best().score());
+            assertEquals(new ChessMove(new ChessPosition(2, 1), new ChessPosition(7, 1), null),
+                    result.best().bestMove());
+            assertEquals(4, result.perThread().size());
+        }
+    }
+
+    @Test
+    void stopsWithinBudgetAndReportsEveryThread() {
+        try (ParallelSearch search = new ParallelSearch(3, 8)) {
+            ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            long start = System.nanoTime();
+            ParallelSearchResult result = search.search(game, 100);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + "ms");
+            assertTrue(game.validMoves(ChessGame.TeamColor.WHITE).contains(result.best().bestMove()));
+            for (SearchResult thread : result.perThread()) {
+                assertTrue(thread.nodes() > 0);
+            }
+            assertEquals(result.totalNodes(), result.perThread().stream().mapToLong(SearchResult::nodes).sum());
+        }
+    }
+}
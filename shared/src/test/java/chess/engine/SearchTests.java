@@ -0,0 +1,79 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    void findsBackRankMate() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, 4, 5_000);
+        assertEquals(move(1, 1, 8, 1), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    void findsMateInTwo() {
+        ChessGame game = ChessGame.fromFen("2k5/8/8/8/8/8/R7/1R5K w - - 0 1");
+        SearchResult result = new Search().search(game, 6, 5_000);
+        assertEquals(Search.MATE - 3, result.score());
+        assertEquals(3, result.principalVariation().size());
+    }
+
+    @Test
+    void winsHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        SearchResult result = new Search().search(game, 4, 5_000);
+        assertEquals(move(1, 4, 5, 4), result.bestMove());
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    void principalVariationIsPlayable() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = game.toFen();
+        SearchResult result = new Search().search(game, 4, 10_000);
+        assertEquals(before, game.toFen());
+        assertEquals(4, result.depth());
+        assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove pvMove : result.principalVariation()) {
+            game.makeMove(pvMove);
+        }
+    }
+
+    @Test
+    void respectsTimeBudget() {
+        SearchResult result = new Search().search(new ChessGame(), 50);
+        assertTrue(result.elapsedMillis() < 500, "took " + result.elapsedMillis() + "ms");
+        assertTrue(new ChessGame().validMoves(ChessGame.TeamColor.WHITE).contains(result.bestMove()));
+        assertTrue(result.depth() >= 1);
+    }
+
+    @Test
+    void noMovesMeansNoBestMove() {
+        SearchResult mated = new Search().search(ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1"), 50);
+        assertNull(mated.bestMove());
+        assertEquals(-Search.MATE, mated.score());
+        assertEquals(ChessPiece.PieceType.QUEEN,
+                new Search().search(ChessGame.fromFen("8/4P1k1/8/8/8/8/8/K7 w - - 0 1"), 4, 5_000)
+                        .bestMove().getPromotionPiece());
+    }
+
+    @Test
+    void deadPositionsScoreAsDraws() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/2B1K3 w - - 0 1");
+        assertEquals(0, new Search().search(game, 4, 5_000).score());
+    }
+}
@@ -0,0 +1,41 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.MoveList;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticExchangeTests {
+
+    private static int findMove(ChessGame game, ChessPosition start, ChessPosition end) {
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (MoveList.toChessMove(move).getStartPosition().equals(start)
+                    && MoveList.toChessMove(move).getEndPosition().equals(end)) {
+                return move;
+            }
+        }
+        throw new AssertionError("no move " + start + " to " + end);
+    }
+
+//    expected gains are in the board's material values, tapered by each position's phase
+    @ParameterizedTest
+    @CsvSource({
+            "'1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1', 1, 5, 5, 5, 92",
+            "'1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1', 3, 4, 5, 5, -232",
+            "'4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1', 4, 5, 5, 4, 94",
+            "'4k3/8/2p5/3p4/8/8/3R4/3RK3 w - - 0 1', 2, 4, 5, 4, -414",
+            "'3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1', 2, 4, 5, 4, 91",
+            "'4k3/8/8/3q4/4K3/8/8/8 w - - 0 1', 4, 5, 5, 4, 950",
+    })
+    void scoresExchanges(String fen, int startRow, int startCol, int endRow, int endCol, int expected) {
+        ChessGame game = ChessGame.fromFen(fen);
+        int move = findMove(game, new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol));
+        assertEquals(expected, new StaticExchange().evaluate(game.getBoard(), move));
+    }
+}
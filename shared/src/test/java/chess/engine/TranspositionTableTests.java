@@ -0,0 +1,60 @@
+package chess.engine;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTests {
+
+    @Test
+    void storedEntryReadsBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(0x1234_5678_9ABCL, 0x4321, -Search.MATE + 7, 9, TranspositionTable.LOWER_BOUND);
+
+        long entry = table.probe(0x1234_5678_9ABCL);
+        assertEquals(0x4321, TranspositionTable.move(entry));
+        assertEquals(-Search.MATE + 7, TranspositionTable.score(entry));
+        assertEquals(9, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(0x1234_5678_9ABDL));
+    }
+
+    @Test
+    void deeperEntrySurvivesShallowerCollision() {
+        TranspositionTable table = new TranspositionTable(1);
+        long buckets = table.capacity() / 2;
+        long deep = 42;
+        long shallow = deep + buckets;
+        long newest = deep + 2 * buckets;
+
+        table.store(deep, 1, 10, 8, TranspositionTable.EXACT);
+        table.store(shallow, 2, 20, 3, TranspositionTable.EXACT);
+        table.store(newest, 3, 30, 2, TranspositionTable.EXACT);
+
+        assertEquals(8, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(0, table.probe(shallow));
+        assertEquals(3, TranspositionTable.move(table.probe(newest)));
+        assertTrue(table.collisionRate() > 0);
+    }
+
+    @Test
+    void oldGenerationIsReplaced() {
+        TranspositionTable table = new TranspositionTable(1);
+        long buckets = table.capacity() / 2;
+        table.store(7, 1, 0, 20, TranspositionTable.EXACT);
+        table.newSearch();
+        table.store(7 + buckets, 2, 0, 1, TranspositionTable.EXACT);
+        table.store(7 + 2 * buckets, 3, 0, 1, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(7));
+    }
+
+    @Test
+    void tableReducesSearchNodes() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult withTable = new Search(new TranspositionTable(16)).search(game, 5, 60_000);
+        SearchResult tiny = new Search(new TranspositionTable(0)).search(game, 5, 60_000);
+        assertTrue(withTable.nodes() < tiny.nodes(), withTable.nodes() + " vs " + tiny.nodes());
+    }
+}
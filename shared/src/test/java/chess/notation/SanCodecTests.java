@@ -0,0 +1,117 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SanCodecTests {
+    private static final List<String> OPERA_GAME = List.of(
+            "e4", "e5", "Nf3", "d6", "d4", "Bg4", "dxe5", "Bxf3", "Qxf3", "dxe5", "Bc4", "Nf6", "Qb3", "Qe7",
+            "Nc3", "c6", "Bg5", "b5", "Nxb5", "cxb5", "Bxb5+", "Nbd7", "O-O-O", "Rd8", "Rxd7", "Rxd7",
+            "Rd1", "Qe6", "Bxd7+", "Nxd7", "Qb8+", "Nxb8", "Rd8#");
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    void gameRoundTrips() {
+        SanCodec codec = new SanCodec();
+        ChessGame game = new ChessGame();
+        List<ChessMove> line = new ArrayList<>();
+        for (String san : OPERA_GAME) {
+            ChessMove move = codec.parse(game, san);
+            line.add(move);
+            game.doMove(move);
+        }
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertEquals(OPERA_GAME, codec.formatLine(new ChessGame(), line));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1, 1, 1, 2, 2, Qa1b2",
+            "4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1, 1, 3, 2, 2, Qcb2",
+            "4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1, 3, 1, 2, 2, Q3b2",
+            "4k3/8/8/R7/8/8/8/R3K3 w - - 0 1, 1, 1, 3, 1, R1a3",
+            "4k3/4r3/8/1N6/8/8/4N3/4K3 w - - 0 1, 5, 2, 3, 3, Nc3",
+            "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1, 5, 5, 6, 4, exd6",
+            "4k2r/8/8/8/8/8/8/4K3 b k - 0 1, 8, 5, 8, 7, O-O",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1, 1, 1, 8, 1, Ra8#",
+    })
+    void formatsAndParses(String fen, int startRow, int startCol, int endRow, int endCol, String san) {
+        ChessGame game = ChessGame.fromFen(fen);
+        ChessMove move = move(startRow, startCol, endRow, endCol);
+        SanCodec codec = new SanCodec();
+        assertEquals(san, codec.format(game, move));
+        assertEquals(move, codec.parse(game, san));
+        assertEquals(fen, game.toFen());
+    }
+
+    @Test
+    void formattingLeavesTheGameAlone() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        game.doMove(move(1, 7, 2, 7));
+        game.doMove(move(8, 7, 8, 8));
+        long key = game.getZobristKey();
+        String fen = game.toFen();
+
+        assertEquals("Ra8#", new SanCodec().format(game, move(1, 1, 8, 1)));
+        assertEquals(key, game.getZobristKey());
+        assertEquals(fen, game.toFen());
+        game.undoMove();
+        game.undoMove();
+        assertEquals("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", game.toFen());
+    }
+
+    @Test
+    void promotes() {
+        ChessGame game = ChessGame.fromFen("8/P7/8/8/8/8/8/k6K w - - 0 1");
+        SanCodec codec = new SanCodec();
+        ChessMove queen = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        ChessMove knight = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT);
+        assertEquals("a8=Q+", codec.format(game, queen));
+        assertEquals("a8=N", codec.format(game, knight));
+        assertEquals(knight, codec.parse(game, "a8N"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "a8"));
+    }
+
+    @Test
+    void rejectsIllegalAndAmbiguousMoves() {
+        SanCodec codec = new SanCodec();
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "Rd1"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "Nf3"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "O-O"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "Rz9"));
+        assertEquals(0, codec.resolve(game, ""));
+        assertThrows(IllegalArgumentException.class, () -> codec.format(game, move(1, 1, 2, 2)));
+    }
+
+    @Test
+    void captureMarkMustMatchTheMove() {
+        SanCodec codec = new SanCodec();
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3pp3/3PP3/5N2/8/4K3 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "d5"));
+        assertEquals(move(4, 5, 5, 4), codec.parse(game, "exd5"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "ed5"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "xd5"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "Ne5"));
+        assertEquals(move(3, 6, 5, 5), codec.parse(game, "Nxe5"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(game, "Nxh4"));
+        assertEquals(move(3, 6, 4, 8), codec.parse(game, "Nh4"));
+
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals(move(5, 5, 6, 4), codec.parse(enPassant, "exd6"));
+        assertThrows(IllegalArgumentException.class, () -> codec.parse(enPassant, "d6"));
+    }
+}
@@ -0,0 +1,31 @@
+package chess.notation;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciCodecTests {
+
+    @Test
+    void roundTrips() {
+        ChessMove push = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertEquals("e2e4", UciCodec.format(push));
+        assertEquals(push, UciCodec.parse("e2e4"));
+
+        ChessMove promotion = new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 7),
+                ChessPiece.PieceType.KNIGHT);
+        assertEquals("h2g1n", UciCodec.format(promotion));
+        assertEquals(promotion, UciCodec.parse("h2g1n"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "e2", "e2e9", "i2e4", "e7e8k", "e7e8Q", "e2e4e5"})
+    void rejectsMalformedMoves(String uci) {
+        assertThrows(IllegalArgumentException.class, () -> UciCodec.parse(uci));
+    }
+}
@@ -0,0 +1,48 @@
+package chess.perft;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTests {
+
+    @ParameterizedTest
+    @EnumSource(ReferencePosition.class)
+    void referencePositionsMatchAtDepthThree(ReferencePosition position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        assertEquals(position.expectedNodes(3), new Perft(1, 0).count(game, 3));
+    }
+
+    @Test
+    void parallelHashedCountMatchesSerial() {
+        ChessGame game = ChessGame.fromFen(ReferencePosition.KIWIPETE.getFen());
+        assertEquals(ReferencePosition.KIWIPETE.expectedNodes(3), new Perft(4, 16).count(game, 3));
+        assertEquals(ChessGame.fromFen(ReferencePosition.KIWIPETE.getFen()), game);
+    }
+
+    @Test
+    void detailedCountsFromStartPosition() {
+        PerftStats stats = new Perft(2, 0).stats(new ChessGame(), 4);
+        assertEquals(197281, stats.getNodes());
+        assertEquals(1576, stats.getCaptures());
+        assertEquals(0, stats.getEnPassants());
+        assertEquals(0, stats.getCastles());
+        assertEquals(469, stats.getChecks());
+        assertEquals(8, stats.getCheckmates());
+    }
+
+    @Test
+    void detailedCountsFromKiwipete() {
+        PerftStats stats = new Perft(2, 0).stats(ChessGame.fromFen(ReferencePosition.KIWIPETE.getFen()), 3);
+        assertEquals(97862, stats.getNodes());
+        assertEquals(17102, stats.getCaptures());
+        assertEquals(45, stats.getEnPassants());
+        assertEquals(3162, stats.getCastles());
+        assertEquals(0, stats.getPromotions());
+        assertEquals(993, stats.getChecks());
+        assertEquals(1, stats.getCheckmates());
+    }
+}
@@ -0,0 +1,107 @@
+package chess.pgn;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnReaderTests {
+
+    @Test
+    void readsTagsMovesAndResult() throws IOException {
+        String pgn = """
+                [Event "Casual \\"Game\\""]
+                [White "Réti"]
+                [Result "1/2-1/2"]
+
+                1. e4 e5 2. Nf3 Nc6 1/2-1/2
+                """;
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)));
+        PgnGame game = reader.next();
+        assertEquals("Casual \"Game\"", game.tag("Event"));
+        assertEquals("Réti", game.tag("White"));
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6"), game.moves());
+        assertEquals("1/2-1/2", game.result());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsCommentsVariationsAndGlyphs() throws IOException {
+        String pgn = """
+                % a line the reader must ignore
+                [Event "?"]
+
+                1.e4 {best by test} e5 (1...c5 2.Nf3 (2.c3) d6) 2.Nf3 $1 ; the rest of this line is a comment 3. Bb5
+                2...Nc6!? 3.Bb5 a6 *
+                """;
+        PgnGame game = new PgnReader(new StringReader(pgn)).next();
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6!?", "Bb5", "a6"), game.moves());
+        assertEquals("*", game.result());
+    }
+
+    @Test
+    void readsGamesOneAfterAnother() throws IOException {
+        String pgn = """
+                [Event "first"]
+
+                1. d4 d5 1-0
+
+                [Event "second"]
+                [Result "0-1"]
+
+                1. c4
+
+                [Event "third"]
+
+                0-1
+                """;
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+        assertEquals("1-0", reader.next().result());
+
+        PgnGame second = reader.next();
+        assertEquals("second", second.tag("Event"));
+        assertEquals(List.of("c4"), second.moves());
+        assertEquals("0-1", second.result());
+
+        PgnGame third = reader.next();
+        assertEquals("third", third.tag("Event"));
+        assertTrue(third.moves().isEmpty());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsMalformedTags() {
+        assertThrows(IllegalArgumentException.class, () -> new PgnReader(new StringReader("[Event]\n1. e4 *")).next());
+        assertThrows(IllegalArgumentException.class,
+                () -> new PgnReader(new StringReader("[Event \"open\n1. e4 *")).next());
+    }
+
+    @Test
+    void readsOnAfterAMalformedTag() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(
+                "[Event broken]\n[Site \"?\"]\n\n1. e4 *\n\n[Event \"ok\"]\n\n1. d4 *"));
+        assertThrows(IllegalArgumentException.class, reader::next);
+        PgnGame game = reader.next();
+        assertEquals("ok", game.tag("Event"));
+        assertEquals(List.of("d4"), game.moves());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsStrayQuotesInMovetext() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader("1. e4 \"oops\" e5 1-0\n1. d4 \"unclosed d5\n2. c4 *"));
+        PgnGame game = assertTimeoutPreemptively(Duration.ofSeconds(5), reader::next);
+        assertEquals(List.of("e4", "e5"), game.moves());
+        assertEquals("1-0", game.result());
+//        an unclosed quote only takes the rest of its line
+        assertEquals(List.of("d4", "c4"), reader.next().moves());
+        assertNull(reader.next());
+    }
+}
@@ -0,0 +1,111 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnReplayTests {
+    private static final String OPERA_GAME = """
+            [Event "Paris"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1.e4 e5 2.Nf3 d6 3.d4 Bg4 4.dxe5 Bxf3 5.Qxf3 dxe5 6.Bc4 Nf6 7.Qb3 Qe7
+            8.Nc3 c6 9.Bg5 b5 10.Nxb5 cxb5 11.Bxb5+ Nbd7 12.O-O-O Rd8 13.Rxd7 Rxd7
+            14.Rd1 Qe6 15.Bxd7+ Nxd7 16.Qb8+ Nxb8 17.Rd8# 1-0
+
+            """;
+
+    @Test
+    void replaysToMate() throws IOException {
+        ReplayResult result = new PgnReplay().replay(new PgnReader(new StringReader(OPERA_GAME)).next());
+        assertTrue(result.isComplete());
+        assertNull(result.illegalMove());
+        assertTrue(result.game().isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void stopsAtFirstIllegalMove() throws IOException {
+        PgnGame pgn = new PgnReader(new StringReader("1. e4 e5 2. Ke3 Nc6 *")).next();
+        ReplayResult result = new PgnReplay().replay(pgn);
+        assertFalse(result.isComplete());
+        assertEquals(2, result.illegalPly());
+        assertEquals("Ke3", result.illegalMove());
+        assertEquals(ChessGame.TeamColor.WHITE, result.game().getTeamTurn());
+    }
+
+    @Test
+    void rejectsAmbiguousMoves() throws IOException {
+        String pgn = "[FEN \"4k3/8/8/8/8/8/4K3/R6R w - - 0 1\"]\n\n1. Rd1 *";
+        ReplayResult result = new PgnReplay().replay(new PgnReader(new StringReader(pgn)).next());
+        assertEquals(0, result.illegalPly());
+
+        String resolved = "[FEN \"4k3/8/8/8/8/8/4K3/R6R w - - 0 1\"]\n\n1. Rad1 *";
+        assertTrue(new PgnReplay().replay(new PgnReader(new StringReader(resolved)).next()).isComplete());
+    }
+
+    @Test
+    void startsFromFenAndPromotes() throws IOException {
+        String pgn = "[SetUp \"1\"]\n[FEN \"8/P7/8/8/8/8/8/k6K w - - 0 1\"]\n\n1. a8=Q+ Kb2 2. Qb7+ *";
+        ReplayResult result = new PgnReplay().replay(new PgnReader(new StringReader(pgn)).next());
+        assertTrue(result.isComplete());
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                result.game().getBoard().getPiece(new ChessPosition(7, 2)));
+
+        ReplayResult badFen = new PgnReplay().replay(new PgnReader(new StringReader("[FEN \"8/8 w\"]\n*")).next());
+        assertNull(badFen.game());
+        assertFalse(badFen.isComplete());
+    }
+
+    @Test
+    void batchReplayStreamsInConstantMemory() throws IOException {
+        int games = 500;
+        List<ReplayResult> kept = new ArrayList<>();
+        int[] mates = {0};
+        ReplayStats stats = new PgnReplay().replayAll(new PgnReader(repeat(OPERA_GAME, games)), result -> {
+            if (result.game().isInCheckmate(ChessGame.TeamColor.BLACK)) { mates[0]++; }
+            if (kept.size() < 2) { kept.add(result); }
+        });
+        assertEquals(games, stats.games());
+        assertEquals(games, mates[0]);
+        assertEquals(0, stats.illegalGames());
+        assertEquals(games * 33L, stats.plies());
+        assertTrue(stats.gamesPerSecond() > 0);
+        assertNotSame(kept.get(0).game(), kept.get(1).game());
+    }
+
+//    hands out the text again and again without ever building the whole input
+    private static Reader repeat(String text, int times) {
+        return new Reader() {
+            private int copies;
+            private int offset;
+
+            @Override
+            public int read(char[] buffer, int start, int length) {
+                if (copies == times) { return -1; }
+                int count = Math.min(length, text.length() - offset);
+                text.getChars(offset, offset + count, buffer, start);
+                offset += count;
+                if (offset == text.length()) {
+                    offset = 0;
+                    copies++;
+                }
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.engine.Search;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTests {
+    private static TablebaseGenerator generator;
+    private static Tablebase tablebase;
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void buildTables() throws IOException {
+        generator = new TablebaseGenerator(2);
+        for (Material material : new Material[]{Material.KQK, Material.KRK, Material.KPK}) {
+            generator.write(material, directory);
+        }
+        tablebase = Tablebase.open(directory);
+    }
+
+    @Test
+    void longestMatesMatchKnownValues() {
+//        mate in 10 for the queen and 16 for the rook, one ply longer with the defender to move
+        assertEquals(20, TablebaseGenerator.longestMate(generator.generate(Material.KQK)));
+        assertEquals(32, TablebaseGenerator.longestMate(generator.generate(Material.KRK)));
+    }
+
+    @Test
+    void opensOnlyTablesThatExist() {
+        assertTrue(tablebase.covers(Material.KPK));
+        assertFalse(tablebase.covers(Material.KBNK));
+        assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/2B1K1N1 w - - 0 1")));
+        assertNull(tablebase.probe(new ChessGame()));
+    }
+
+    @Test
+    void rejectsTableOfWrongSize() throws IOException {
+        Path other = Files.createDirectories(directory.resolve("wrong"));
+        Files.copy(directory.resolve("KQK.tb"), other.resolve("KBNK.tb"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.open(other));
+    }
+
+    @Test
+    void probesPawnEndings() {
+        TablebaseResult win = tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        assertEquals(TablebaseResult.Outcome.WIN, win.outcome());
+        assertTrue(win.pliesToMate() > 0);
+
+//        a rook pawn with the defending king in the corner can't be won
+        assertEquals(TablebaseResult.DRAW, tablebase.probe(ChessGame.fromFen("k7/8/K7/P7/8/8/8/8 w - - 0 1")));
+
+        TablebaseResult loss = tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        assertEquals(TablebaseResult.Outcome.LOSS, loss.outcome());
+    }
+
+    @Test
+    void mirrorsWhenBlackIsStronger() {
+        TablebaseResult white = tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        TablebaseResult black = tablebase.probe(ChessGame.fromFen("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"));
+        assertEquals(white, black);
+
+        TablebaseResult defending = tablebase.probe(ChessGame.fromFen("8/8/8/8/4p3/4k3/8/4K3 w - - 0 1"));
+        assertEquals(TablebaseResult.Outcome.LOSS, defending.outcome());
+    }
+
+    @Test
+    void bestMoveMatesAndDefends() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+        assertEquals(new TablebaseResult(TablebaseResult.Outcome.WIN, 1), tablebase.probe(game));
+        ChessMove mate = tablebase.bestMove(game);
+        game.makeMove(mate);
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+
+//        the defender takes the hanging rook rather than walk into a loss
+        ChessGame defender = ChessGame.fromFen("8/8/8/8/8/2k5/2R5/6K1 b - - 0 1");
+        ChessMove capture = tablebase.bestMove(defender);
+        defender.makeMove(capture);
+        assertTrue(defender.hasInsufficientMaterial());
+    }
+
+    @Test
+    void searchScoresEndingsExactly() {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        TablebaseResult expected = tablebase.probe(game);
+        assertEquals(TablebaseResult.Outcome.WIN, expected.outcome());
+
+        Search search = new Search();
+        search.setTablebase(tablebase);
+        SearchResult result = search.search(game, 2, 5_000);
+        assertEquals(Search.MATE - expected.pliesToMate(), result.score());
+    }
+}